@@ -0,0 +1,41 @@
+package com.railway.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the booking benchmarks at several thread counts and writes one JSON result
+ * file per thread count, e.g. target/jmh-results-t8.json.
+ * Usage: java -jar target/benchmarks.jar [threadCounts] [JMH options], where
+ * threadCounts is a comma-separated list (default 1,8,32).
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String threadCounts = "1,8,32";
+        String[] jmhArgs = args;
+        if (args.length > 0 && args[0].matches("\\d+(,\\d+)*")) {
+            threadCounts = args[0];
+            jmhArgs = java.util.Arrays.copyOfRange(args, 1, args.length);
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs);
+        new File("target").mkdirs();
+        for (String threads : threadCounts.split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-results-t" + threads + ".json");
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include("com\\.railway\\.benchmark\\..*");
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
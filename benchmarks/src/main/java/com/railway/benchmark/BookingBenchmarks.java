@@ -0,0 +1,117 @@
+package com.railway.benchmark;
+
+import com.railway.model.BookingStats;
+import com.railway.service.RailwayTicketBookingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of RailwayTicketBookingSystem against an embedded database.
+ * Booking benchmarks cancel their seats after each invocation (and the cancel benchmark
+ * books them before), so every measured call sees the same seat occupancy.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmarks {
+    private static final int SEATS_PER_BOOKING = 2;
+
+    @State(Scope.Benchmark)
+    public static class SystemState {
+        @Param({"100", "1000", "10000"})
+        public int seatCount;
+
+        @Param({"jdbc", "memory"})
+        public String store;
+
+        RailwayTicketBookingSystem system;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            system = EmbeddedDatabase.freshSystem(seatCount, store);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            system.shutdown();
+        }
+    }
+
+    /**
+     * Per-thread user and a private pair of seats for explicit selection.
+     */
+    @State(Scope.Thread)
+    public static class UserState {
+        String userName;
+        int[] explicitSeats;
+
+        @Setup(Level.Trial)
+        public void setUp(SystemState systemState, ThreadParams threads) {
+            int index = threads.getThreadIndex();
+            userName = "Bench " + index;
+            int first = index * SEATS_PER_BOOKING + 1;
+            if (first + SEATS_PER_BOOKING - 1 > systemState.seatCount) {
+                throw new IllegalStateException("Not enough seats for " + threads.getThreadCount() + " threads");
+            }
+            explicitSeats = new int[]{first, first + 1};
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CancelAfterBooking {
+        @TearDown(Level.Invocation)
+        public void cancel(SystemState systemState, UserState user) {
+            systemState.system.cancelBooking(user.userName, SEATS_PER_BOOKING);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BookBeforeCancel {
+        @Setup(Level.Invocation)
+        public void book(SystemState systemState, UserState user) {
+            systemState.system.bookTicket(user.userName, SEATS_PER_BOOKING, user.explicitSeats);
+        }
+    }
+
+    @Benchmark
+    public boolean bookTicketAutoAllocated(SystemState systemState, UserState user, CancelAfterBooking cancel) {
+        return systemState.system.bookTicket(user.userName, SEATS_PER_BOOKING, null);
+    }
+
+    @Benchmark
+    public boolean bookTicketExplicitSeats(SystemState systemState, UserState user, CancelAfterBooking cancel) {
+        return systemState.system.bookTicket(user.userName, SEATS_PER_BOOKING, user.explicitSeats);
+    }
+
+    @Benchmark
+    public boolean cancelBooking(SystemState systemState, UserState user, BookBeforeCancel book) {
+        return systemState.system.cancelBooking(user.userName, SEATS_PER_BOOKING);
+    }
+
+    @Benchmark
+    public String[] displaySeatMap(SystemState systemState) {
+        return systemState.system.displaySeatMap();
+    }
+
+    @Benchmark
+    public BookingStats getBookingStats(SystemState systemState) {
+        return systemState.system.getBookingStatsSnapshot();
+    }
+}
@@ -0,0 +1,46 @@
+package com.railway.benchmark;
+
+import com.railway.dao.DatabaseConnection;
+import com.railway.service.RailwayTicketBookingSystem;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Points the application at an in-memory H2 database in MySQL mode, so benchmarks
+ * need no MySQL server, or at the in-memory booking store. System properties override
+ * db.properties; JMH runs each parameter combination in a fresh fork, so the store
+ * type can be chosen per trial.
+ */
+final class EmbeddedDatabase {
+    static {
+        System.setProperty("db.url", "jdbc:h2:mem:railway_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+    }
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Drops all booking data and starts a fresh booking system.
+     * @param totalSeats Number of seats
+     * @param storeType Booking store: "jdbc" for H2, or "memory"
+     * @return Booking system backed by the chosen store
+     * @throws SQLException on database error
+     */
+    static RailwayTicketBookingSystem freshSystem(int totalSeats, String storeType) throws SQLException {
+        System.setProperty("store.type", storeType);
+        if (storeType.equals("jdbc")) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS inventory_meta");
+                stmt.execute("DROP TABLE IF EXISTS seat_legs");
+                stmt.execute("DROP TABLE IF EXISTS seats");
+                stmt.execute("DROP TABLE IF EXISTS bookings");
+            }
+        }
+        return new RailwayTicketBookingSystem(totalSeats);
+    }
+}
@@ -0,0 +1,78 @@
+package com.railway.benchmark;
+
+import com.railway.service.SeatInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Book/release cycle on SeatInventory with a simulated database commit, under the former
+ * global booking lock (reserve, commit and assign all inside one lock) and under
+ * per-coach locking (only the seat claim takes a coach lock; the commit runs outside).
+ * Run it at several thread counts through BenchmarkRunner to compare how the two scale.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatLockingBenchmarks {
+    private static final int SEATS_PER_BOOKING = 2;
+
+    @Param({"global", "coach"})
+    public String locking;
+
+    @Param({"1024"})
+    public int seatCount;
+
+    @Param({"200"})
+    public long commitMicros;
+
+    private final ReentrantLock globalLock = new ReentrantLock();
+    private SeatInventory inventory;
+    private long commitNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new SeatInventory(seatCount);
+        commitNanos = TimeUnit.MICROSECONDS.toNanos(commitMicros);
+    }
+
+    @Benchmark
+    public int[] bookAndRelease() {
+        if (!locking.equals("global")) {
+            return bookAndReleaseSeats();
+        }
+        globalLock.lock();
+        try {
+            return bookAndReleaseSeats();
+        } finally {
+            globalLock.unlock();
+        }
+    }
+
+    private int[] bookAndReleaseSeats() {
+        int[] seats = inventory.reserve(SEATS_PER_BOOKING);
+        if (seats == null) {
+            throw new IllegalStateException("Not enough seats for the benchmark threads");
+        }
+        LockSupport.parkNanos(commitNanos);
+        inventory.assign(seats, 1);
+        inventory.release(seats);
+        return seats;
+    }
+}
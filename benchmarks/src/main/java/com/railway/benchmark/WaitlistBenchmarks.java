@@ -0,0 +1,91 @@
+package com.railway.benchmark;
+
+import com.railway.dao.BookingStore;
+import com.railway.dao.BookingStoreFactory;
+import com.railway.model.Booking;
+import com.railway.service.RailwayTicketBookingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * processWait with a large waitlist on a train that is one seat short of every request,
+ * i.e. the cost of deciding that no waitlisted booking can be promoted.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WaitlistBenchmarks {
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"1000", "10000"})
+    public int seatCount;
+
+    @Param({"jdbc", "memory"})
+    public String store;
+
+    @Param({"1000", "100000"})
+    public int waitlistSize;
+
+    private RailwayTicketBookingSystem system;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // Seeding writes one outbox notification per booking; keep the dispatcher out of the measurement.
+        System.setProperty("notify.enabled", "false");
+        system = EmbeddedDatabase.freshSystem(seatCount, store);
+        int remaining = seatCount - 1;
+        while (remaining > 0) {
+            int seats = Math.min(10, remaining);
+            system.bookTicket("Filler", seats, null);
+            remaining -= seats;
+        }
+        system.shutdown();
+        // Seed the waitlist through the store: the group-commit queue is bounded and would reject
+        // most of a large burst of submits. The restarted system loads the waitlist at startup.
+        BookingStore bookingStore = BookingStoreFactory.getStore();
+        List<Booking> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < waitlistSize; i++) {
+            batch.add(new Booking(0, "Waiting " + (i % 1000), 2 + i % 9, null, "WAITLISTED"));
+            if (batch.size() == SEED_BATCH || i == waitlistSize - 1) {
+                bookingStore.addBookings(batch, Collections.nCopies(batch.size(), null));
+                batch.clear();
+            }
+        }
+        system = new RailwayTicketBookingSystem(seatCount);
+        int waitlisted = system.getReadSnapshot().getWaitlistLength();
+        if (waitlisted != waitlistSize || system.getFreeSeatCount(null) != 1) {
+            throw new IllegalStateException("Expected " + waitlistSize + " waitlisted bookings and 1 free seat, got "
+                    + waitlisted + " and " + system.getFreeSeatCount(null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @Benchmark
+    public void processWaitWithLargeWaitlist() {
+        system.processWait();
+    }
+}
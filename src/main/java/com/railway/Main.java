@@ -1,17 +1,24 @@
 package com.railway;
 
+import com.railway.config.AppConfig;
+import com.railway.export.BookingCsvExporter;
+import com.railway.metrics.FlightRecording;
 import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
 import com.railway.service.RailwayTicketBookingSystem;
+import com.railway.service.Route;
 import com.railway.ui.TicketBookingGUI;
-import com.railway.threads.RandomBookingThread;
+import com.railway.threads.LoadGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintWriter;
-import java.util.Map;
-import java.util.Properties;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -19,39 +26,77 @@ import java.util.Scanner;
  */
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
+    /** Short mixed load for demos: 5 requests per second for 10 seconds from 5 users. */
+    private static final String[] DEMO_LOAD = {"--rate=5", "--duration=10", "--warmup=0", "--users=5", "--workers=4"};
 
     public static void main(String[] args) {
+        FlightRecording.startIfConfigured();
+        if (args.length > 0 && args[0].equals("--load")) {
+            runLoadMode(args);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         System.out.println("=== Railway Ticket Booking System ===");
         System.out.print("Run in GUI mode? (y/n): ");
         String mode = scanner.nextLine().trim().toLowerCase();
-        int totalSeats;
-        try {
-            Properties props = new Properties();
-            try (InputStream input = Main.class.getResourceAsStream("/db.properties")) {
-                if (input == null) {
-                    throw new IOException("Unable to find db.properties");
-                }
-                props.load(input);
-                totalSeats = Integer.parseInt(props.getProperty("total.seats", "20"));
-                if (totalSeats <= 0 || totalSeats > 1000) {
-                    throw new IllegalArgumentException("Total seats must be between 1 and 1000");
-                }
-            }
-        } catch (IOException | IllegalArgumentException e) {
-            logger.error("Error loading total seats, defaulting to 20: {}", e.getMessage(), e);
-            totalSeats = 20;
-        }
+        int totalSeats = loadTotalSeats();
         RailwayTicketBookingSystem bookingSystem = new RailwayTicketBookingSystem(totalSeats);
 
         if (mode.equals("y")) {
             new TicketBookingGUI(bookingSystem, totalSeats);
-            new RandomBookingThread(bookingSystem).start();
+            Thread demo = new Thread(() -> runDemoLoad(bookingSystem), "demo-load");
+            demo.setDaemon(true);
+            demo.start();
         } else {
             runConsoleMode(bookingSystem, scanner);
         }
     }
 
+    private static int loadTotalSeats() {
+        int totalSeats = AppConfig.getInt("total.seats", 20);
+        if (totalSeats <= 0) {
+            logger.error("Total seats must be positive, got {}; defaulting to 20", totalSeats);
+            return 20;
+        }
+        return totalSeats;
+    }
+
+    private static void runLoadMode(String[] args) {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.println(LoadGenerator.Options.USAGE);
+            return;
+        }
+        LoadGenerator.Options options;
+        try {
+            options = LoadGenerator.Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(LoadGenerator.Options.USAGE);
+            return;
+        }
+        RailwayTicketBookingSystem bookingSystem = new RailwayTicketBookingSystem(loadTotalSeats());
+        try {
+            new LoadGenerator(bookingSystem, options).run(System.out);
+        } catch (InterruptedException e) {
+            logger.error("Load test interrupted: {}", e.getMessage(), e);
+            Thread.currentThread().interrupt();
+        } finally {
+            bookingSystem.shutdown();
+        }
+    }
+
+    /**
+     * Runs the DEMO_LOAD profile of the load generator and prints its report.
+     */
+    private static void runDemoLoad(RailwayTicketBookingSystem bookingSystem) {
+        try {
+            new LoadGenerator(bookingSystem, LoadGenerator.Options.parse(DEMO_LOAD)).run(System.out);
+        } catch (InterruptedException e) {
+            logger.error("Demo load interrupted: {}", e.getMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private static void runConsoleMode(RailwayTicketBookingSystem bookingSystem, Scanner scanner) {
         while (true) {
             System.out.println("\n1. Book Tickets");
@@ -60,7 +105,7 @@ public class Main {
             System.out.println("4. Display Booking History");
             System.out.println("5. Display Booking Stats");
             System.out.println("6. Export Bookings");
-            System.out.println("7. Start Random Booking");
+            System.out.println("7. Run Demo Load (10 s)");
             System.out.println("8. Exit");
             System.out.print("Choose an option: ");
             String choice = scanner.nextLine().trim();
@@ -80,7 +125,18 @@ public class Main {
                             System.out.println("Error: Seats must be between 1 and 10.");
                             continue;
                         }
-                        boolean success = bookingSystem.bookTicket(userName, seats, null);
+                        Leg leg = null;
+                        Route route = bookingSystem.getRoute();
+                        if (route.hasLegs()) {
+                            System.out.println("Stations: " + String.join(", ", route.getStations()));
+                            System.out.print("From station (blank for the full journey): ");
+                            String from = scanner.nextLine().trim();
+                            if (!from.isEmpty()) {
+                                System.out.print("To station: ");
+                                leg = route.leg(from, scanner.nextLine().trim());
+                            }
+                        }
+                        boolean success = bookingSystem.bookTicket(userName, seats, null, leg);
                         System.out.println(success ? "Booking successful." : "Booking failed.");
                     }
                     case "2" -> {
@@ -106,28 +162,50 @@ public class Main {
                         }
                     }
                     case "4" -> {
-                        for (Booking booking : bookingSystem.getBookingHistory()) {
-                            System.out.println(booking);
+                        System.out.print("Filter by user name (blank for all users): ");
+                        String userName = scanner.nextLine().trim();
+                        System.out.print("Filter by status (CONFIRMED, WAITLISTED, CANCELLED; blank for all): ");
+                        String status = scanner.nextLine().trim().toUpperCase();
+                        System.out.print("From date (yyyy-MM-dd, blank for no lower bound): ");
+                        LocalDate fromDay = parseDay(scanner.nextLine());
+                        System.out.print("To date, inclusive (yyyy-MM-dd, blank for no upper bound): ");
+                        LocalDate toDay = parseDay(scanner.nextLine());
+                        BookingQuery query = BookingQuery.forDays(userName.isEmpty() ? null : userName,
+                                status.isEmpty() ? null : status, fromDay, toDay, true);
+                        int pageSize = AppConfig.getInt("history.page.size", 20);
+                        int cursor = 0;
+                        while (true) {
+                            BookingPage page = bookingSystem.findBookings(query, cursor, pageSize);
+                            for (Booking booking : page.getBookings()) {
+                                System.out.println(booking);
+                            }
+                            if (cursor == 0 && page.getBookings().isEmpty()) {
+                                System.out.println("No bookings found.");
+                            }
+                            if (!page.hasMore()) break;
+                            System.out.print("Enter n for older bookings, anything else to stop: ");
+                            if (!scanner.nextLine().trim().equalsIgnoreCase("n")) break;
+                            cursor = page.getNextCursor();
                         }
                     }
                     case "5" -> {
-                        Map<String, Integer> stats = bookingSystem.getBookingStats();
-                        stats.forEach((status, count) -> System.out.println(status + ": " + count));
+                        BookingStats stats = bookingSystem.getBookingStatsSnapshot();
+                        stats.toStatusCounts().forEach((status, count) -> System.out.println(status + ": " + count));
+                        System.out.println("Confirmed seats: " + stats.getConfirmedSeats());
+                        System.out.println("Waitlisted seats: " + stats.getWaitlistedSeats());
                     }
                     case "6" -> {
-                        try (PrintWriter writer = new PrintWriter("bookings.csv")) {
-                            writer.println("ID,User,Seats,Time,Status");
-                            for (Booking booking : bookingSystem.getBookingHistory()) {
-                                writer.println(String.format("%d,%s,%d,%s,%s",
-                                        booking.getId(), booking.getUserName(), booking.getSeatsBooked(),
-                                        booking.getBookingTime(), booking.getStatus()));
-                            }
-                            System.out.println("Bookings exported to bookings.csv");
-                        }
+                        System.out.print("Export only new bookings since the last export? (y/n): ");
+                        boolean incremental = scanner.nextLine().trim().equalsIgnoreCase("y");
+                        Path file = Path.of(AppConfig.getString("export.file", "bookings.csv"));
+                        long rows = new BookingCsvExporter().export(file, AppConfig.getBoolean("export.gzip", false),
+                                incremental, (written, total) -> System.out.println("Exported " + written + "/" + total + " bookings..."));
+                        System.out.println(rows + " bookings exported to " + file);
                     }
-                    case "7" -> new RandomBookingThread(bookingSystem).start();
+                    case "7" -> runDemoLoad(bookingSystem);
                     case "8" -> {
                         System.out.println("Exiting...");
+                        bookingSystem.shutdown();
                         scanner.close();
                         return;
                     }
@@ -135,12 +213,22 @@ public class Main {
                 }
             } catch (NumberFormatException e) {
                 System.out.println("Error: Please enter a valid number.");
+            } catch (DateTimeParseException e) {
+                System.out.println("Error: Dates must be in the form yyyy-MM-dd.");
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
             }
         }
     }
 
+    /**
+     * @return Parsed date, or null for blank input
+     * @throws DateTimeParseException if the date is malformed
+     */
+    private static LocalDate parseDay(String text) {
+        return text.isBlank() ? null : LocalDate.parse(text.trim());
+    }
+
     private static boolean isValidUserName(String name) {
         return name != null && !name.isEmpty() && name.length() <= 50 && name.matches("[a-zA-Z0-9 ]+");
     }
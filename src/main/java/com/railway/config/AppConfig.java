@@ -0,0 +1,88 @@
+package com.railway.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Application settings loaded from db.properties.
+ * A JVM system property with the same key overrides the file value.
+ */
+public final class AppConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+    private static final String PROPERTIES_FILE = "/db.properties";
+    private static final Properties PROPS = new Properties();
+
+    static {
+        try (InputStream input = AppConfig.class.getResourceAsStream(PROPERTIES_FILE)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + PROPERTIES_FILE);
+            }
+            PROPS.load(input);
+        } catch (IOException e) {
+            logger.error("Failed to load application properties: {}", e.getMessage(), e);
+        }
+    }
+
+    private AppConfig() {
+    }
+
+    /**
+     * Gets a string setting.
+     * @param key Property key
+     * @param defaultValue Value used when the key is not set
+     * @return Configured value or the default
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, PROPS.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets an integer setting, falling back to the default on malformed values.
+     * @param key Property key
+     * @param defaultValue Value used when the key is not set or invalid
+     * @return Configured value or the default
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a long setting, falling back to the default on malformed values.
+     * @param key Property key
+     * @param defaultValue Value used when the key is not set or invalid
+     * @return Configured value or the default
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a boolean setting.
+     * @param key Property key
+     * @param defaultValue Value used when the key is not set
+     * @return Configured value or the default
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -1,45 +1,77 @@
 package com.railway.dao;
 
+import com.railway.metrics.DatabaseCallEvent;
 import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.Notification;
+import com.railway.model.SeatRelease;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Data Access Object for booking operations.
+ * MySQL implementation of BookingStore over JDBC. Seat claims are conditional on the
+ * seat still being free in the database, so several application instances can share
+ * one database: the loser of a race gets SeatConflictException instead of a double booking.
+ * Outbox notifications are rows of the notifications table, inserted in the booking's
+ * transaction.
  */
-public class BookingDAO {
+public class BookingDAO implements BookingStore {
     private static final Logger logger = LoggerFactory.getLogger(BookingDAO.class);
 
+    /**
+     * Creates the schema and seat rows if they do not exist.
+     * @param totalSeats Number of seats
+     */
+    @Override
+    public void initialize(int totalSeats) {
+        DatabaseInitializer.initializeDatabase(totalSeats);
+    }
+
     /**
      * Adds a new booking to the database.
      * @param booking Booking object
      * @return Generated booking ID, or -1 on failure
      * @throws SQLException on database error
      */
+    @Override
     public int addBooking(Booking booking) throws SQLException {
         if (booking.getUserName() == null || booking.getUserName().isEmpty() || booking.getSeatsBooked() <= 0) {
             logger.error("Invalid booking data: {}", booking);
             throw new IllegalArgumentException("Invalid booking data");
         }
-        String sql = "INSERT INTO bookings (user_name, seats_booked, status) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO bookings (user_name, seats_booked, status, request_id) VALUES (?, ?, ?, ?)";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
         try (Connection conn = DatabaseConnection.getConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
                 stmt.setString(1, booking.getUserName());
                 stmt.setInt(2, booking.getSeatsBooked());
                 stmt.setString(3, booking.getStatus());
+                stmt.setString(4, booking.getRequestId());
                 stmt.executeUpdate();
                 ResultSet rs = stmt.getGeneratedKeys();
                 if (rs.next()) {
                     int bookingId = rs.getInt(1);
+                    addNotification(conn, bookingId, booking.getStatus(), booking.getSeatsBooked());
                     conn.commit();
+                    call.bookingId = bookingId;
+                    call.success = true;
                     logger.info("Added booking: {}", booking);
                     return bookingId;
                 }
@@ -47,103 +79,868 @@ public class BookingDAO {
                 return -1;
             } catch (SQLException e) {
                 conn.rollback();
+                checkDuplicateRequest(conn, booking, e);
                 logger.error("Failed to add booking: {}", e.getMessage(), e);
                 throw e;
             }
+        } finally {
+            endCall(call, "addBooking", booking.getSeatsBooked());
         }
     }
 
     /**
-     * Updates a seat's booking status.
-     * @param seatId Seat ID
-     * @param isBooked Booking status
-     * @param bookingId Associated booking ID (nullable)
-     * @throws SQLException on database error
+     * Adds a confirmed booking and assigns all of its seats in one transaction.
+     * @param booking Booking object
+     * @param seatIds Seat IDs to assign
+     * @return Generated booking ID
+     * @throws SQLException on database error, or if any seat could not be assigned
      */
-    public void updateSeat(int seatId, boolean isBooked, Integer bookingId) throws SQLException {
-        String sql = "UPDATE seats SET is_booked = ?, booking_id = ? WHERE seat_id = ?";
+    @Override
+    public int addConfirmedBooking(Booking booking, int[] seatIds) throws SQLException {
+        if (booking.getUserName() == null || booking.getUserName().isEmpty() || seatIds.length == 0) {
+            logger.error("Invalid booking data: {}", booking);
+            throw new IllegalArgumentException("Invalid booking data");
+        }
+        String sql = "INSERT INTO bookings (user_name, seats_booked, status, from_stop, to_stop, request_id) "
+                + "VALUES (?, ?, 'CONFIRMED', ?, ?, ?)";
+        Leg leg = booking.getLeg();
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
         try (Connection conn = DatabaseConnection.getConnection()) {
             conn.setAutoCommit(false);
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setBoolean(1, isBooked);
-                if (bookingId == null) {
-                    stmt.setNull(2, Types.INTEGER);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, booking.getUserName());
+                stmt.setInt(2, booking.getSeatsBooked());
+                if (leg == null) {
+                    stmt.setNull(3, Types.INTEGER);
+                    stmt.setNull(4, Types.INTEGER);
                 } else {
-                    stmt.setInt(2, bookingId);
+                    stmt.setInt(3, leg.getFromStop());
+                    stmt.setInt(4, leg.getToStop());
                 }
-                stmt.setInt(3, seatId);
+                stmt.setString(5, booking.getRequestId());
                 stmt.executeUpdate();
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("No booking ID generated for " + booking.getUserName());
+                }
+                int bookingId = rs.getInt(1);
+                if (leg == null) {
+                    assignSeats(conn, bookingId, seatIds);
+                } else {
+                    holdLegSeats(conn, bookingId, leg, seatIds);
+                }
+                addNotification(conn, bookingId, Notification.CONFIRMED, booking.getSeatsBooked());
+                conn.commit();
+                call.bookingId = bookingId;
+                call.success = true;
+                logger.info("Added booking {} with seats {}", bookingId, Arrays.toString(seatIds));
+                return bookingId;
+            } catch (SQLException e) {
+                conn.rollback();
+                checkDuplicateRequest(conn, booking, e);
+                logger.error("Failed to add booking: {}", e.getMessage(), e);
+                throw e;
+            }
+        } finally {
+            endCall(call, "addConfirmedBooking", seatIds.length);
+        }
+    }
+
+    /**
+     * Confirms a waitlisted booking and assigns its seats in one transaction.
+     * @param bookingId Booking ID
+     * @param seatIds Seat IDs to assign
+     * @return true if confirmed, false if the booking is no longer waitlisted
+     * @throws SQLException on database error, or if any seat could not be assigned
+     */
+    @Override
+    public boolean confirmWaitlistedBooking(int bookingId, int[] seatIds) throws SQLException {
+        String sql = "UPDATE bookings SET status = 'CONFIRMED' WHERE id = ? AND status = 'WAITLISTED'";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, bookingId);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                assignSeats(conn, bookingId, seatIds);
+                addNotification(conn, bookingId, Notification.PROMOTED, seatIds.length);
+                conn.commit();
+                call.bookingId = bookingId;
+                call.success = true;
+                logger.info("Confirmed waitlisted booking {} with seats {}", bookingId, Arrays.toString(seatIds));
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                logger.error("Failed to confirm booking {}: {}", bookingId, e.getMessage(), e);
+                throw e;
+            }
+        } finally {
+            endCall(call, "confirmWaitlistedBooking", seatIds.length);
+        }
+    }
+
+    /**
+     * Adds a group of bookings and assigns their seats in one transaction using JDBC batching.
+     * @param bookings Bookings to insert, with status CONFIRMED or WAITLISTED
+     * @param seatIds Seats per booking, in the same order (null for waitlisted bookings)
+     * @return Generated booking IDs, in input order
+     * @throws SQLException on database error, or if any seat could not be assigned
+     */
+    @Override
+    public int[] addBookings(List<Booking> bookings, List<int[]> seatIds) throws SQLException {
+        if (bookings.stream().anyMatch(booking -> booking.getLeg() != null)) {
+            throw new IllegalArgumentException("Leg bookings must be added with addConfirmedBooking");
+        }
+        String sql = "INSERT INTO bookings (user_name, seats_booked, status, request_id) VALUES (?, ?, ?, ?)";
+        String seatSql = "UPDATE seats SET is_booked = TRUE, booking_id = ? WHERE seat_id = ? AND is_booked = FALSE "
+                + "AND NOT EXISTS (SELECT 1 FROM seat_legs l WHERE l.seat_id = seats.seat_id)";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+                 PreparedStatement seatStmt = conn.prepareStatement(seatSql)) {
+                for (Booking booking : bookings) {
+                    stmt.setString(1, booking.getUserName());
+                    stmt.setInt(2, booking.getSeatsBooked());
+                    stmt.setString(3, booking.getStatus());
+                    stmt.setString(4, booking.getRequestId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                int[] bookingIds = new int[bookings.size()];
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    for (int i = 0; i < bookingIds.length; i++) {
+                        if (!rs.next()) {
+                            throw new SQLException("Expected " + bookingIds.length + " generated booking IDs, got " + i);
+                        }
+                        bookingIds[i] = rs.getInt(1);
+                    }
+                }
+                int seatCount = 0;
+                List<Integer> batchedSeats = new ArrayList<>();
+                for (int i = 0; i < bookingIds.length; i++) {
+                    if (seatIds.get(i) == null) continue;
+                    for (int seatId : seatIds.get(i)) {
+                        seatStmt.setInt(1, bookingIds[i]);
+                        seatStmt.setInt(2, seatId);
+                        seatStmt.addBatch();
+                        batchedSeats.add(seatId);
+                        seatCount++;
+                    }
+                }
+                if (seatCount > 0) {
+                    int[] updated = seatStmt.executeBatch();
+                    boolean unknown = false;
+                    for (int count : updated) {
+                        if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                            int[] all = batchedSeats.stream().mapToInt(Integer::intValue).toArray();
+                            throw new SeatConflictException(takenSeats(conn, all, bookingIds));
+                        }
+                        unknown |= count == Statement.SUCCESS_NO_INFO;
+                    }
+                    if (unknown) {
+                        checkAssigned(conn, bookingIds, batchedSeats.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                }
+                String[] types = new String[bookingIds.length];
+                int[] seats = new int[bookingIds.length];
+                for (int i = 0; i < bookingIds.length; i++) {
+                    types[i] = bookings.get(i).getStatus();
+                    seats[i] = bookings.get(i).getSeatsBooked();
+                }
+                addNotifications(conn, bookingIds, types, seats);
+                conn.commit();
+                call.success = true;
+                logger.info("Added {} bookings with {} seats in one transaction.", bookingIds.length, seatCount);
+                return bookingIds;
+            } catch (SQLException e) {
+                conn.rollback();
+                logger.error("Failed to add booking group: {}", e.getMessage(), e);
+                throw e;
+            }
+        } finally {
+            endCall(call, "addBookings", seatCount(seatIds));
+        }
+    }
+
+    /**
+     * Releases seats from confirmed bookings in one transaction. Bookings left without
+     * seats are cancelled; the others keep their remaining seats.
+     * @param releases Per-booking seats to release
+     * @throws SQLException on database error, or if a booking or seat changed concurrently
+     */
+    @Override
+    public void cancelSeats(List<SeatRelease> releases) throws SQLException {
+        String cancelSql = "UPDATE bookings SET status = 'CANCELLED' "
+                + "WHERE id = ? AND status = 'CONFIRMED' AND seats_booked = ?";
+        String shrinkSql = "UPDATE bookings SET seats_booked = ? "
+                + "WHERE id = ? AND status = 'CONFIRMED' AND seats_booked = ?";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement cancelStmt = conn.prepareStatement(cancelSql);
+                 PreparedStatement shrinkStmt = conn.prepareStatement(shrinkSql)) {
+                for (SeatRelease release : releases) {
+                    int updated;
+                    int previousSeats = release.getRemainingSeats() + release.getSeatIds().length;
+                    if (release.isFullCancellation()) {
+                        cancelStmt.setInt(1, release.getBookingId());
+                        cancelStmt.setInt(2, previousSeats);
+                        updated = cancelStmt.executeUpdate();
+                    } else {
+                        shrinkStmt.setInt(1, release.getRemainingSeats());
+                        shrinkStmt.setInt(2, release.getBookingId());
+                        shrinkStmt.setInt(3, previousSeats);
+                        updated = shrinkStmt.executeUpdate();
+                    }
+                    if (updated != 1) {
+                        throw new SQLException("Booking " + release.getBookingId() + " is no longer confirmed");
+                    }
+                    if (release.getLeg() == null) {
+                        freeSeats(conn, release.getBookingId(), release.getSeatIds());
+                    } else {
+                        freeLegSeats(conn, release.getBookingId(), release.getSeatIds());
+                    }
+                }
+                int[] bookingIds = new int[releases.size()];
+                String[] types = new String[releases.size()];
+                int[] seats = new int[releases.size()];
+                for (int i = 0; i < bookingIds.length; i++) {
+                    bookingIds[i] = releases.get(i).getBookingId();
+                    types[i] = Notification.CANCELLED;
+                    seats[i] = releases.get(i).getSeatIds().length;
+                }
+                addNotifications(conn, bookingIds, types, seats);
                 conn.commit();
-                logger.debug("Updated seat {}: isBooked={}, bookingId={}", seatId, isBooked, bookingId);
+                call.success = true;
+                logger.info("Released seats: {}", releases);
             } catch (SQLException e) {
                 conn.rollback();
-                logger.error("Failed to update seat {}: {}", seatId, e.getMessage(), e);
+                logger.error("Failed to release seats {}: {}", releases, e.getMessage(), e);
                 throw e;
             }
+        } finally {
+            endCall(call, "cancelSeats", releasedSeats(releases));
+        }
+    }
+
+    private void addNotification(Connection conn, int bookingId, String type, int seats) throws SQLException {
+        addNotifications(conn, new int[]{bookingId}, new String[]{type}, new int[]{seats});
+    }
+
+    /**
+     * Inserts outbox rows within the caller's transaction. The user name is copied from
+     * the booking row.
+     */
+    private void addNotifications(Connection conn, int[] bookingIds, String[] types, int[] seats) throws SQLException {
+        String sql = "INSERT INTO notifications (booking_id, user_name, type, seats) "
+                + "SELECT id, user_name, ?, ? FROM bookings WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < bookingIds.length; i++) {
+                stmt.setString(1, types[i]);
+                stmt.setInt(2, seats[i]);
+                stmt.setInt(3, bookingIds[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Ends a DatabaseCallEvent; fields are only filled in while a recording wants the event.
+     */
+    private static void endCall(DatabaseCallEvent call, String operation, int seats) {
+        call.end();
+        if (call.shouldCommit()) {
+            call.operation = operation;
+            call.seats = seats;
+            call.commit();
+        }
+    }
+
+    private static int seatCount(List<int[]> seatIds) {
+        int count = 0;
+        for (int[] seats : seatIds) {
+            if (seats != null) count += seats.length;
+        }
+        return count;
+    }
+
+    private static int releasedSeats(List<SeatRelease> releases) {
+        int count = 0;
+        for (SeatRelease release : releases) {
+            count += release.getSeatIds().length;
+        }
+        return count;
+    }
+
+    private void freeSeats(Connection conn, int bookingId, int[] seatIds) throws SQLException {
+        String sql = "UPDATE seats SET is_booked = FALSE, booking_id = NULL WHERE booking_id = ? AND seat_id IN ("
+                + placeholders(seatIds.length) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, bookingId);
+            for (int i = 0; i < seatIds.length; i++) {
+                stmt.setInt(i + 2, seatIds[i]);
+            }
+            int updated = stmt.executeUpdate();
+            if (updated != seatIds.length) {
+                throw new SQLException("Expected to free " + seatIds.length + " seats of booking " + bookingId + ", freed " + updated);
+            }
+        }
+    }
+
+    /**
+     * Assigns seats that are free in the database, i.e. neither booked nor held for a leg.
+     * @throws SeatConflictException if any seat is taken
+     */
+    private void assignSeats(Connection conn, int bookingId, int[] seatIds) throws SQLException {
+        String sql = "UPDATE seats SET is_booked = TRUE, booking_id = ? WHERE seat_id IN (" + placeholders(seatIds.length)
+                + ") AND is_booked = FALSE AND NOT EXISTS (SELECT 1 FROM seat_legs l WHERE l.seat_id = seats.seat_id)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, bookingId);
+            for (int i = 0; i < seatIds.length; i++) {
+                stmt.setInt(i + 2, seatIds[i]);
+            }
+            int updated = stmt.executeUpdate();
+            if (updated != seatIds.length) {
+                int[] taken = takenSeats(conn, seatIds, bookingId);
+                if (taken.length > 0) {
+                    throw new SeatConflictException(taken);
+                }
+                throw new SQLException("Expected to assign " + seatIds.length + " seats to booking " + bookingId + ", assigned " + updated);
+            }
+        }
+    }
+
+    /**
+     * Verifies a batched assignment whose driver did not report per-row counts.
+     * @throws SeatConflictException if some seats did not go to the given bookings
+     */
+    private void checkAssigned(Connection conn, int[] bookingIds, int[] seatIds) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM seats WHERE booking_id IN (" + placeholders(bookingIds.length) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < bookingIds.length; i++) {
+                stmt.setInt(i + 1, bookingIds[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == seatIds.length) return;
+            }
+        }
+        throw new SeatConflictException(takenSeats(conn, seatIds, bookingIds));
+    }
+
+    /**
+     * Lists the seats booked or leg-held by bookings other than the given ones.
+     */
+    private int[] takenSeats(Connection conn, int[] seatIds, int... bookingIds) throws SQLException {
+        String own = placeholders(bookingIds.length);
+        String sql = "SELECT seat_id FROM seats WHERE seat_id IN (" + placeholders(seatIds.length) + ") "
+                + "AND ((is_booked = TRUE AND (booking_id IS NULL OR booking_id NOT IN (" + own + "))) "
+                + "OR seat_id IN (SELECT seat_id FROM seat_legs WHERE booking_id NOT IN (" + own + ")))";
+        List<Integer> taken = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int seatId : seatIds) stmt.setInt(index++, seatId);
+            for (int bookingId : bookingIds) stmt.setInt(index++, bookingId);
+            for (int bookingId : bookingIds) stmt.setInt(index++, bookingId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) taken.add(rs.getInt(1));
+            }
+        }
+        return taken.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Turns a unique-key violation on request_id into DuplicateRequestException.
+     * Called after rollback; returns normally if the failure has another cause.
+     */
+    private void checkDuplicateRequest(Connection conn, Booking booking, SQLException e) throws SQLException {
+        String state = e.getSQLState();
+        if (booking.getRequestId() == null || state == null || !state.startsWith("23")) return;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM bookings WHERE request_id = ?")) {
+            stmt.setString(1, booking.getRequestId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    logger.info("Request {} was already booked as booking {}.", booking.getRequestId(), rs.getInt(1));
+                    throw new DuplicateRequestException(booking.getRequestId(), rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds seats for a leg if no full-journey booking and no overlapping leg has them.
+     * The seat rows are locked first, so concurrent claims on the same seats from any
+     * instance, full or leg, serialize on them; the overlap query then sees every leg
+     * committed by an earlier holder.
+     * @throws SeatConflictException if any seat is taken on the leg
+     */
+    private void holdLegSeats(Connection conn, int bookingId, Leg leg, int[] seatIds) throws SQLException {
+        String lockSql = "SELECT seat_id FROM seats WHERE seat_id IN (" + placeholders(seatIds.length)
+                + ") AND is_booked = FALSE FOR UPDATE";
+        String overlapSql = "SELECT l.seat_id FROM seat_legs l WHERE l.seat_id IN (" + placeholders(seatIds.length)
+                + ") AND l.booking_id IN (SELECT id FROM bookings WHERE from_stop < ? AND to_stop > ?)";
+        Set<Integer> taken = new TreeSet<>();
+        for (int seatId : seatIds) taken.add(seatId);
+        try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+            for (int i = 0; i < seatIds.length; i++) {
+                stmt.setInt(i + 1, seatIds[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) taken.remove(rs.getInt(1));
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(overlapSql)) {
+            for (int i = 0; i < seatIds.length; i++) {
+                stmt.setInt(i + 1, seatIds[i]);
+            }
+            stmt.setInt(seatIds.length + 1, leg.getToStop());
+            stmt.setInt(seatIds.length + 2, leg.getFromStop());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) taken.add(rs.getInt(1));
+            }
+        }
+        if (!taken.isEmpty()) {
+            throw new SeatConflictException(taken.stream().mapToInt(Integer::intValue).toArray());
+        }
+        String sql = "INSERT INTO seat_legs (booking_id, seat_id) VALUES (?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int seatId : seatIds) {
+                stmt.setInt(1, bookingId);
+                stmt.setInt(2, seatId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void freeLegSeats(Connection conn, int bookingId, int[] seatIds) throws SQLException {
+        String sql = "DELETE FROM seat_legs WHERE booking_id = ? AND seat_id IN (" + placeholders(seatIds.length) + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, bookingId);
+            for (int i = 0; i < seatIds.length; i++) {
+                stmt.setInt(i + 2, seatIds[i]);
+            }
+            int deleted = stmt.executeUpdate();
+            if (deleted != seatIds.length) {
+                throw new SQLException("Expected to free " + seatIds.length + " seats of booking " + bookingId + ", freed " + deleted);
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Retrieves booked seats with their owning booking.
+     * @return Map of seat ID to booking ID (0 if the seat has no booking reference)
+     * @throws SQLException on database error
+     */
+    @Override
+    public Map<Integer, Integer> getBookedSeats() throws SQLException {
+        Map<Integer, Integer> bookedSeats = new HashMap<>();
+        String sql = "SELECT seat_id, booking_id FROM seats WHERE is_booked = TRUE";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                bookedSeats.put(rs.getInt("seat_id"), rs.getInt("booking_id"));
+            }
+            logger.debug("Retrieved {} booked seats.", bookedSeats.size());
+            call.success = true;
+            return bookedSeats;
+        } finally {
+            endCall(call, "getBookedSeats", 0);
+        }
+    }
+
+    /**
+     * Retrieves seats held by confirmed leg bookings.
+     * @return Map of booking ID to its seat IDs
+     * @throws SQLException on database error
+     */
+    @Override
+    public Map<Integer, int[]> getLegSeats() throws SQLException {
+        Map<Integer, List<Integer>> seatsByBooking = new HashMap<>();
+        String sql = "SELECT l.booking_id, l.seat_id FROM seat_legs l JOIN bookings b ON l.booking_id = b.id "
+                + "WHERE b.status = 'CONFIRMED'";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                seatsByBooking.computeIfAbsent(rs.getInt("booking_id"), id -> new ArrayList<>()).add(rs.getInt("seat_id"));
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "getLegSeats", 0);
+        }
+        Map<Integer, int[]> legSeats = new HashMap<>();
+        seatsByBooking.forEach((bookingId, seats) -> legSeats.put(bookingId, seats.stream().mapToInt(Integer::intValue).toArray()));
+        logger.debug("Retrieved leg seats of {} bookings.", legSeats.size());
+        return legSeats;
+    }
+
+    /**
+     * Retrieves the legs held on each seat by confirmed leg bookings.
+     * @return Map of seat ID to the legs held on it
+     * @throws SQLException on database error
+     */
+    @Override
+    public Map<Integer, List<Leg>> getHeldLegs() throws SQLException {
+        Map<Integer, List<Leg>> heldLegs = new HashMap<>();
+        String sql = "SELECT l.seat_id, b.from_stop, b.to_stop FROM seat_legs l JOIN bookings b ON l.booking_id = b.id "
+                + "WHERE b.status = 'CONFIRMED'";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                heldLegs.computeIfAbsent(rs.getInt("seat_id"), id -> new ArrayList<>())
+                        .add(new Leg(rs.getInt("from_stop"), rs.getInt("to_stop")));
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "getHeldLegs", 0);
+        }
+        return heldLegs;
+    }
+
+    /**
+     * Retrieves the seats held by one user's confirmed bookings, full-journey and leg bookings alike.
+     * Served by idx_bookings_user_status.
+     * @param userName User name
+     * @return Map of booking ID to its seat IDs
+     * @throws SQLException on database error
+     */
+    @Override
+    public Map<Integer, int[]> getUserSeats(String userName) throws SQLException {
+        Map<Integer, List<Integer>> seatsByBooking = new HashMap<>();
+        String sql = "SELECT s.booking_id, s.seat_id FROM bookings b JOIN seats s ON s.booking_id = b.id "
+                + "WHERE b.user_name = ? AND b.status = 'CONFIRMED' "
+                + "UNION ALL SELECT l.booking_id, l.seat_id FROM bookings b JOIN seat_legs l ON l.booking_id = b.id "
+                + "WHERE b.user_name = ? AND b.status = 'CONFIRMED'";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, userName);
+            stmt.setString(2, userName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seatsByBooking.computeIfAbsent(rs.getInt("booking_id"), id -> new ArrayList<>()).add(rs.getInt("seat_id"));
+                }
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "getUserSeats", 0);
+        }
+        Map<Integer, int[]> userSeats = new HashMap<>();
+        seatsByBooking.forEach((bookingId, seats) -> userSeats.put(bookingId, seats.stream().mapToInt(Integer::intValue).toArray()));
+        return userSeats;
+    }
+
+    /**
+     * Retrieves undelivered notifications from the outbox, oldest first.
+     * @param afterId Exclusive lower bound on notification ID
+     * @param limit Maximum number of notifications
+     * @return Pending notifications ordered by ID
+     * @throws SQLException on database error
+     */
+    @Override
+    public List<Notification> getPendingNotifications(long afterId, int limit) throws SQLException {
+        List<Notification> pending = new ArrayList<>();
+        String sql = "SELECT id, booking_id, user_name, type, seats, created_at FROM notifications "
+                + "WHERE status = 'PENDING' AND id > ? ORDER BY id LIMIT ?";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp time = rs.getTimestamp("created_at");
+                    pending.add(new Notification(rs.getLong("id"), rs.getInt("booking_id"), rs.getString("user_name"),
+                            rs.getString("type"), rs.getInt("seats"), time != null ? time.toLocalDateTime() : null));
+                }
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "getPendingNotifications", 0);
+        }
+        return pending;
+    }
+
+    /**
+     * Takes notifications out of the outbox: delivered ones are deleted, abandoned ones
+     * stay behind with status FAILED for inspection.
+     * @param ids Notification IDs
+     * @param delivered true if they were delivered, false if delivery was given up
+     * @throws SQLException on database error
+     */
+    @Override
+    public void completeNotifications(long[] ids, boolean delivered) throws SQLException {
+        if (ids.length == 0) return;
+        String sql = delivered
+                ? "DELETE FROM notifications WHERE id IN (" + placeholders(ids.length) + ")"
+                : "UPDATE notifications SET status = 'FAILED' WHERE id IN (" + placeholders(ids.length) + ")";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.length; i++) {
+                stmt.setLong(i + 1, ids[i]);
+            }
+            stmt.executeUpdate();
+            call.success = true;
+        } catch (SQLException e) {
+            logger.error("Failed to complete notifications {}: {}", Arrays.toString(ids), e.getMessage(), e);
+            throw e;
+        } finally {
+            endCall(call, "completeNotifications", 0);
+        }
+    }
+
+    /**
+     * Retrieves one page of bookings matching a query. Paging continues from the last
+     * booking ID (keyset), so every page is an index range scan of at most limit + 1 rows.
+     * @param query Filters and order
+     * @param cursor Booking ID the page continues after, 0 for the first page
+     * @param limit Maximum bookings on the page
+     * @return Page of bookings in query order
+     * @throws SQLException on database error
+     */
+    @Override
+    public BookingPage findBookings(BookingQuery query, int cursor, int limit) throws SQLException {
+        int pageSize = Math.max(1, limit);
+        List<Booking> bookings = new ArrayList<>(Math.min(pageSize, 1000));
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = prepareQuery(conn, query, cursor, pageSize + 1);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                bookings.add(readBooking(rs));
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "findBookings", 0);
+        }
+        boolean hasMore = bookings.size() > pageSize;
+        return new BookingPage(hasMore ? bookings.subList(0, pageSize) : bookings, hasMore);
+    }
+
+    /**
+     * Streams every booking matching a query in query order.
+     * @param query Filters and order
+     * @param cursor Booking ID to continue after, 0 to start at the beginning
+     * @param fetchSize Rows per fetch; 0 or less streams row by row on MySQL
+     * @param handler Receives each booking
+     * @throws SQLException on database error
+     * @throws IOException if the handler fails
+     */
+    @Override
+    public void streamBookings(BookingQuery query, int cursor, int fetchSize, BookingRowHandler handler)
+            throws SQLException, IOException {
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = prepareQuery(conn, query, cursor, 0)) {
+            // Connector/J streams rows one at a time only for Integer.MIN_VALUE without useCursorFetch.
+            stmt.setFetchSize(fetchSize > 0 ? fetchSize : DatabaseInitializer.isMySql(conn) ? Integer.MIN_VALUE : 1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(readBooking(rs));
+                }
+            }
+            call.success = true;
+        } finally {
+            endCall(call, "streamBookings", 0);
+        }
+    }
+
+    /**
+     * Builds a history query. Each filter combination is served by one of the bookings
+     * indexes created in DatabaseInitializer, ending in id for the keyset order.
+     * @param limit Maximum rows, 0 for no limit
+     */
+    private static PreparedStatement prepareQuery(Connection conn, BookingQuery query, int cursor, int limit)
+            throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, user_name, seats_booked, booking_time, status, from_stop, to_stop FROM bookings WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (query.getUserName() != null) {
+            sql.append(" AND user_name = ?");
+            params.add(query.getUserName());
+        }
+        if (query.getStatus() != null) {
+            sql.append(" AND status = ?");
+            params.add(query.getStatus());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND booking_time >= ?");
+            params.add(Timestamp.valueOf(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND booking_time < ?");
+            params.add(Timestamp.valueOf(query.getTo()));
+        }
+        if (cursor > 0) {
+            sql.append(query.isNewestFirst() ? " AND id < ?" : " AND id > ?");
+            params.add(cursor);
+        }
+        sql.append(query.isNewestFirst() ? " ORDER BY id DESC" : " ORDER BY id");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+        PreparedStatement stmt = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        try {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
         }
     }
 
     /**
-     * Retrieves available seats.
-     * @param totalSeats Total number of seats
-     * @return List of available seat IDs
+     * Retrieves confirmed bookings that hold seats.
+     * The query is driven by the seats and seat_legs tables, so its cost is bounded by the
+     * number of held seats.
+     * @return List of confirmed bookings
      * @throws SQLException on database error
      */
-    public List<Integer> getAvailableSeats(int totalSeats) throws SQLException {
-        List<Integer> availableSeats = new ArrayList<>();
-        String sql = "SELECT seat_id FROM seats WHERE is_booked = FALSE";
+    @Override
+    public List<Booking> getConfirmedBookings() throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+        String sql = "SELECT b.* FROM seats s JOIN bookings b ON s.booking_id = b.id WHERE b.status = 'CONFIRMED' "
+                + "UNION SELECT b.* FROM seat_legs l JOIN bookings b ON l.booking_id = b.id WHERE b.status = 'CONFIRMED'";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                availableSeats.add(rs.getInt("seat_id"));
+                bookings.add(readBooking(rs));
             }
-            logger.debug("Retrieved {} available seats.", availableSeats.size());
-            return availableSeats;
+            logger.debug("Retrieved {} confirmed bookings.", bookings.size());
+            call.success = true;
+            return bookings;
+        } finally {
+            endCall(call, "getConfirmedBookings", 0);
         }
     }
 
     /**
-     * Retrieves booking history.
-     * @return List of all bookings
+     * Retrieves waitlisted bookings in FIFO order.
+     * @return List of waitlisted bookings ordered by ID
      * @throws SQLException on database error
      */
-    public List<Booking> getBookingHistory() throws SQLException {
+    @Override
+    public List<Booking> getWaitlistedBookings() throws SQLException {
         List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings";
+        String sql = "SELECT * FROM bookings WHERE status = 'WAITLISTED' ORDER BY id";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                bookings.add(new Booking(
-                        rs.getInt("id"),
-                        rs.getString("user_name"),
-                        rs.getInt("seats_booked"),
-                        rs.getTimestamp("booking_time").toLocalDateTime(),
-                        rs.getString("status")
-                ));
-            }
-            logger.debug("Retrieved {} bookings.", bookings.size());
+                bookings.add(readBooking(rs));
+            }
+            logger.debug("Retrieved {} waitlisted bookings.", bookings.size());
+            call.success = true;
             return bookings;
+        } finally {
+            endCall(call, "getWaitlistedBookings", 0);
+        }
+    }
+
+    private static Booking readBooking(ResultSet rs) throws SQLException {
+        int fromStop = rs.getInt("from_stop");
+        boolean fullJourney = rs.wasNull();
+        int toStop = rs.getInt("to_stop");
+        return new Booking(
+                rs.getInt("id"),
+                rs.getString("user_name"),
+                rs.getInt("seats_booked"),
+                rs.getTimestamp("booking_time").toLocalDateTime(),
+                rs.getString("status"),
+                fullJourney || rs.wasNull() ? null : new Leg(fromStop, toStop)
+        );
+    }
+
+    /**
+     * Counts bookings with an ID above the given one.
+     * @param afterId Exclusive lower bound on booking ID
+     * @return Number of bookings
+     * @throws SQLException on database error
+     */
+    @Override
+    public long countBookingsAfter(int afterId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM bookings WHERE id > ?";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                long count = rs.next() ? rs.getLong(1) : 0;
+                call.success = true;
+                return count;
+            }
+        } finally {
+            endCall(call, "countBookingsAfter", 0);
         }
     }
 
     /**
-     * Retrieves booking statistics.
-     * @return Map of status to count
+     * Retrieves booking counts and seat totals per status, used to seed in-memory counters.
+     * @return Booking statistics snapshot
      * @throws SQLException on database error
      */
-    public Map<String, Integer> getBookingStats() throws SQLException {
-        Map<String, Integer> stats = new HashMap<>();
-        String sql = "SELECT status, COUNT(*) as count FROM bookings GROUP BY status";
+    @Override
+    public BookingStats loadBookingStats() throws SQLException {
+        long[] counts = new long[3];
+        long[] seats = new long[3];
+        String sql = "SELECT status, COUNT(*) AS count, COALESCE(SUM(seats_booked), 0) AS seats FROM bookings GROUP BY status";
+        DatabaseCallEvent call = new DatabaseCallEvent();
+        call.begin();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                stats.put(rs.getString("status"), rs.getInt("count"));
+                int i = switch (rs.getString("status")) {
+                    case "CONFIRMED" -> 0;
+                    case "WAITLISTED" -> 1;
+                    default -> 2;
+                };
+                counts[i] = rs.getLong("count");
+                seats[i] = rs.getLong("seats");
             }
-            logger.debug("Retrieved booking stats: {}", stats);
-            return stats;
+            call.success = true;
+        } finally {
+            endCall(call, "loadBookingStats", 0);
         }
+        BookingStats stats = new BookingStats(counts[0], counts[1], counts[2], seats[0], seats[1]);
+        logger.debug("Loaded booking stats: {}", stats);
+        return stats;
     }
 }
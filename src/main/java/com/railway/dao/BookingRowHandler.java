@@ -0,0 +1,18 @@
+package com.railway.dao;
+
+import com.railway.model.Booking;
+
+import java.io.IOException;
+
+/**
+ * Receives bookings one at a time from a streaming query.
+ */
+@FunctionalInterface
+public interface BookingRowHandler {
+    /**
+     * Handles one booking row.
+     * @param booking Booking read from the cursor
+     * @throws IOException if the row cannot be written
+     */
+    void handle(Booking booking) throws IOException;
+}
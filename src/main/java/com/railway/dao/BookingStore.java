@@ -0,0 +1,192 @@
+package com.railway.dao;
+
+import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.Notification;
+import com.railway.model.SeatRelease;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for bookings and seats.
+ * Implementations: BookingDAO (MySQL over JDBC) and InMemoryBookingStore; the one in
+ * use is chosen by store.type in db.properties, see BookingStoreFactory. Every multi-step
+ * operation is atomic: it either applies completely or throws and changes nothing.
+ * <p>
+ * A booking with a leg holds its seats for part of the route only. Those seats are kept
+ * apart from the seats table view: getBookedSeats covers full-journey bookings,
+ * getLegSeats covers leg bookings. The service's inventory decides who may hold
+ * which segment; stores record the result.
+ * <p>
+ * A booking's client request ID, if any, is unique across all bookings, so a replayed
+ * request cannot create a second booking.
+ * <p>
+ * Seat claims check the store's own seat state, not only the caller's: claiming a seat
+ * that is already taken fails with SeatConflictException. Several service instances can
+ * therefore share one store.
+ * <p>
+ * Every booking change that concerns a user (booked, waitlisted, promoted from the
+ * waitlist, seats cancelled) also adds a Notification to the store's outbox in the same
+ * atomic operation, so a notification exists if and only if the change happened.
+ */
+public interface BookingStore {
+    /**
+     * Prepares storage for the given number of seats, creating the schema if needed.
+     * @param totalSeats Number of seats
+     */
+    void initialize(int totalSeats);
+
+    /**
+     * Adds a new booking without seats.
+     * @param booking Booking object
+     * @return Generated booking ID, or -1 on failure
+     * @throws DuplicateRequestException if a booking with the same request ID exists
+     * @throws SQLException on storage error
+     */
+    int addBooking(Booking booking) throws SQLException;
+
+    /**
+     * Adds a confirmed booking and assigns all of its seats atomically. If the booking
+     * has a leg, the seats are held for that leg only.
+     * @param booking Booking object
+     * @param seatIds Seat IDs to assign
+     * @return Generated booking ID
+     * @throws DuplicateRequestException if a booking with the same request ID exists
+     * @throws SeatConflictException if any seat is already taken
+     * @throws SQLException on storage error, or if any seat could not be assigned
+     */
+    int addConfirmedBooking(Booking booking, int[] seatIds) throws SQLException;
+
+    /**
+     * Confirms a waitlisted booking and assigns its seats atomically.
+     * @param bookingId Booking ID
+     * @param seatIds Seat IDs to assign
+     * @return true if confirmed, false if the booking is no longer waitlisted
+     * @throws SeatConflictException if any seat is already taken
+     * @throws SQLException on storage error, or if any seat could not be assigned
+     */
+    boolean confirmWaitlistedBooking(int bookingId, int[] seatIds) throws SQLException;
+
+    /**
+     * Adds a group of full-journey bookings and assigns their seats atomically.
+     * @param bookings Bookings to insert, with status CONFIRMED or WAITLISTED
+     * @param seatIds Seats per booking, in the same order (null for waitlisted bookings)
+     * @return Generated booking IDs, in input order
+     * @throws SeatConflictException if any seat is already taken
+     * @throws SQLException on storage error, or if any seat could not be assigned
+     * @throws IllegalArgumentException if a booking has a leg
+     */
+    int[] addBookings(List<Booking> bookings, List<int[]> seatIds) throws SQLException;
+
+    /**
+     * Releases seats from confirmed bookings atomically. Bookings left without seats
+     * are cancelled; the others keep their remaining seats.
+     * @param releases Per-booking seats to release
+     * @throws SQLException on storage error, or if a booking or seat changed concurrently
+     */
+    void cancelSeats(List<SeatRelease> releases) throws SQLException;
+
+    /**
+     * Retrieves booked seats with their owning booking.
+     * @return Map of seat ID to booking ID (0 if the seat has no booking reference)
+     * @throws SQLException on storage error
+     */
+    Map<Integer, Integer> getBookedSeats() throws SQLException;
+
+    /**
+     * Retrieves seats held by confirmed leg bookings.
+     * @return Map of booking ID to its seat IDs
+     * @throws SQLException on storage error
+     */
+    Map<Integer, int[]> getLegSeats() throws SQLException;
+
+    /**
+     * Retrieves the legs held on each seat by confirmed leg bookings.
+     * @return Map of seat ID to the legs held on it
+     * @throws SQLException on storage error
+     */
+    Map<Integer, List<Leg>> getHeldLegs() throws SQLException;
+
+    /**
+     * Retrieves the seats held by one user's confirmed bookings, full-journey and leg bookings alike.
+     * @param userName User name
+     * @return Map of booking ID to its seat IDs
+     * @throws SQLException on storage error
+     */
+    Map<Integer, int[]> getUserSeats(String userName) throws SQLException;
+
+    /**
+     * Retrieves one page of bookings matching a query, by keyset pagination.
+     * @param query Filters and order
+     * @param cursor Booking ID the page continues after (see BookingPage.getNextCursor), 0 for the first page
+     * @param limit Maximum bookings on the page
+     * @return Page of bookings in query order
+     * @throws SQLException on storage error
+     */
+    BookingPage findBookings(BookingQuery query, int cursor, int limit) throws SQLException;
+
+    /**
+     * Streams every booking matching a query, in query order, without loading them all
+     * into memory.
+     * @param query Filters and order
+     * @param cursor Booking ID to continue after, 0 to start at the beginning
+     * @param fetchSize Rows per fetch where applicable; 0 or less uses the store's default
+     * @param handler Receives each booking
+     * @throws SQLException on storage error
+     * @throws IOException if the handler fails
+     */
+    void streamBookings(BookingQuery query, int cursor, int fetchSize, BookingRowHandler handler)
+            throws SQLException, IOException;
+
+    /**
+     * Retrieves confirmed bookings that hold seats, including leg bookings.
+     * @return List of confirmed bookings
+     * @throws SQLException on storage error
+     */
+    List<Booking> getConfirmedBookings() throws SQLException;
+
+    /**
+     * Retrieves waitlisted bookings in FIFO order.
+     * @return List of waitlisted bookings ordered by ID
+     * @throws SQLException on storage error
+     */
+    List<Booking> getWaitlistedBookings() throws SQLException;
+
+    /**
+     * Counts bookings with an ID above the given one.
+     * @param afterId Exclusive lower bound on booking ID
+     * @return Number of bookings
+     * @throws SQLException on storage error
+     */
+    long countBookingsAfter(int afterId) throws SQLException;
+
+    /**
+     * Retrieves booking counts and seat totals per status, used to seed in-memory counters.
+     * @return Booking statistics snapshot
+     * @throws SQLException on storage error
+     */
+    BookingStats loadBookingStats() throws SQLException;
+
+    /**
+     * Retrieves undelivered notifications from the outbox, oldest first.
+     * @param afterId Exclusive lower bound on notification ID
+     * @param limit Maximum number of notifications
+     * @return Pending notifications ordered by ID
+     * @throws SQLException on storage error
+     */
+    List<Notification> getPendingNotifications(long afterId, int limit) throws SQLException;
+
+    /**
+     * Takes notifications out of the outbox.
+     * @param ids Notification IDs
+     * @param delivered true if they were delivered, false if delivery was given up
+     * @throws SQLException on storage error
+     */
+    void completeNotifications(long[] ids, boolean delivered) throws SQLException;
+}
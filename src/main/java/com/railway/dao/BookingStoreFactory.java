@@ -0,0 +1,43 @@
+package com.railway.dao;
+
+import com.railway.config.AppConfig;
+import com.railway.metrics.BookingMetrics;
+
+/**
+ * Provides the process-wide BookingStore selected by store.type in db.properties:
+ * "jdbc" (default) for MySQL through BookingDAO, "memory" for InMemoryBookingStore,
+ * which needs no database server, or "journal" for JournalBookingStore, which adds
+ * local persistence to the in-memory engine. With metrics enabled the store is wrapped
+ * in TimedBookingStore.
+ */
+public final class BookingStoreFactory {
+    private BookingStoreFactory() {
+    }
+
+    /**
+     * Gets the configured store. The in-memory store is shared, so every caller must go
+     * through this method rather than creating stores directly.
+     * @return Booking store
+     * @throws IllegalStateException if store.type is unknown
+     */
+    public static BookingStore getStore() {
+        return Holder.STORE;
+    }
+
+    private static final class Holder {
+        static final BookingStore STORE = timed(create(AppConfig.getString("store.type", "jdbc").trim().toLowerCase()));
+
+        private static BookingStore create(String type) {
+            return switch (type) {
+                case "jdbc" -> new BookingDAO();
+                case "memory" -> new InMemoryBookingStore();
+                case "journal" -> new JournalBookingStore();
+                default -> throw new IllegalStateException("Unknown store.type: " + type);
+            };
+        }
+
+        private static BookingStore timed(BookingStore store) {
+            return BookingMetrics.ENABLED ? new TimedBookingStore(store) : store;
+        }
+    }
+}
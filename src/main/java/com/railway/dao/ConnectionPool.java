@@ -0,0 +1,361 @@
+package com.railway.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of physical JDBC connections.
+ * Borrowed connections are proxies whose close() hands the physical connection back
+ * to the pool. Idle connections are validated on borrow, evicted after the idle
+ * timeout (never below the minimum size), and physical connects are retried with
+ * exponential backoff.
+ */
+class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long validationIntervalMs;
+    private final int validationTimeoutSeconds;
+    private final int maxRetries;
+    private final long retryDelayMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService housekeeper;
+    private int totalCount;
+    private int waitingCount;
+    private boolean closed;
+
+    ConnectionPool(String url, String user, String password, int minSize, int maxSize, long idleTimeoutMs,
+                   long borrowTimeoutMs, long validationIntervalMs, int validationTimeoutSeconds,
+                   int maxRetries, long retryDelayMs) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.maxRetries = Math.max(1, maxRetries);
+        this.retryDelayMs = retryDelayMs;
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most the borrow timeout when the pool is exhausted.
+     * @return Pooled connection; closing it returns it to the pool
+     * @throws SQLException if no connection could be obtained in time
+     */
+    Connection borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+        while (true) {
+            IdleConnection candidate = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && totalCount >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection");
+                    }
+                    waitingCount++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waitingCount--;
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else {
+                    totalCount++;
+                    create = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    return wrap(connectWithRetry());
+                } catch (SQLException | RuntimeException e) {
+                    discarded();
+                    throw e;
+                }
+            }
+            if (isUsable(candidate)) {
+                return wrap(candidate.connection);
+            }
+            closeQuietly(candidate.connection);
+            discarded();
+        }
+    }
+
+    int getActiveCount() {
+        lock.lock();
+        try {
+            return totalCount - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getWaitingCount() {
+        lock.lock();
+        try {
+            return waitingCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes idle connections and stops housekeeping. Borrowed connections are closed
+     * when they are returned.
+     */
+    void close() {
+        List<IdleConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalCount -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(c -> closeQuietly(c.connection));
+    }
+
+    private boolean isUsable(IdleConnection candidate) {
+        if (System.currentTimeMillis() - candidate.lastUsedMillis < validationIntervalMs) {
+            return true;
+        }
+        try {
+            return candidate.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            logger.debug("Connection validation failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Connection connectWithRetry() throws SQLException {
+        int attempts = 0;
+        while (true) {
+            try {
+                Connection conn = DriverManager.getConnection(url, user, password);
+                logger.debug("Database connection established.");
+                return conn;
+            } catch (SQLException e) {
+                attempts++;
+                logger.warn("Connection attempt {}/{} failed: {}", attempts, maxRetries, e.getMessage());
+                if (attempts >= maxRetries) {
+                    logger.error("Failed to connect after {} attempts.", maxRetries, e);
+                    throw e;
+                }
+                try {
+                    Thread.sleep(retryDelayMs << (attempts - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    logger.error("Interrupted during retry.", ie);
+                    throw new SQLException("Interrupted during retry", ie);
+                }
+            }
+        }
+    }
+
+    private void giveBack(Connection physical, boolean broken) {
+        if (!broken) {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                logger.debug("Discarding connection that failed to reset: {}", e.getMessage());
+                broken = true;
+            }
+        }
+        lock.lock();
+        try {
+            if (!broken && !closed) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(physical);
+        discarded();
+    }
+
+    private void discarded() {
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        List<Connection> evicted = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+            Iterator<IdleConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && totalCount > minSize) {
+                IdleConnection candidate = oldestFirst.next();
+                if (candidate.lastUsedMillis >= cutoff) break;
+                oldestFirst.remove();
+                totalCount--;
+                evicted.add(candidate.connection);
+            }
+            missing = closed ? 0 : minSize - totalCount;
+            totalCount += Math.max(0, missing);
+        } finally {
+            lock.unlock();
+        }
+        evicted.forEach(this::closeQuietly);
+        if (!evicted.isEmpty()) {
+            logger.debug("Evicted {} idle database connections.", evicted.size());
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                giveBack(DriverManager.getConnection(url, user, password), false);
+            } catch (SQLException e) {
+                logger.warn("Failed to pre-open pooled connection: {}", e.getMessage());
+                for (int j = i; j < missing; j++) {
+                    discarded();
+                }
+                break;
+            }
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnectionHandler(physical));
+    }
+
+    private void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close connection: {}", e.getMessage());
+        }
+    }
+
+    private record IdleConnection(Connection connection, long lastUsedMillis) {
+    }
+
+    /**
+     * Delegates to the physical connection until close(), which returns it to the pool.
+     * Connection-level SQL errors (SQLState class 08) mark the connection as broken.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private boolean returned;
+        private boolean broken;
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        giveBack(physical, broken);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + physical + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                }
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
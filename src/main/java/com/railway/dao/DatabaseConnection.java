@@ -1,72 +1,100 @@
 package com.railway.dao;
 
+import com.railway.config.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 /**
- * Manages database connections using JDBC.
+ * Manages pooled database connections using JDBC.
+ * The pool is created on first use, so processes on the memory or journal store never
+ * connect. shutdown() closes it; a later getConnection() opens a new one.
  */
 public class DatabaseConnection {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
-    private static final String PROPERTIES_FILE = "/db.properties";
-    private static final String URL;
-    private static final String USER;
-    private static final String PASSWORD;
-    private static final int MAX_RETRIES = 3;
-    private static final long RETRY_DELAY_MS = 1000;
+    private static volatile ConnectionPool pool;
 
-    static {
-        Properties props = new Properties();
-        try (InputStream input = DatabaseConnection.class.getResourceAsStream(PROPERTIES_FILE)) {
-            if (input == null) {
-                throw new IOException("Unable to find " + PROPERTIES_FILE);
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current != null) return current;
+        synchronized (DatabaseConnection.class) {
+            if (pool == null) {
+                pool = createPool();
             }
-            props.load(input);
-            URL = props.getProperty("db.url");
-            USER = props.getProperty("db.user");
-            PASSWORD = props.getProperty("db.password");
+            return pool;
+        }
+    }
+
+    private static ConnectionPool createPool() {
+        try {
+            String url = AppConfig.getString("db.url", null);
+            if (url == null) {
+                throw new IllegalArgumentException("db.url is not set");
+            }
+            ConnectionPool created = new ConnectionPool(
+                    url,
+                    AppConfig.getString("db.user", null),
+                    AppConfig.getString("db.password", ""),
+                    AppConfig.getInt("db.pool.min.size", 2),
+                    AppConfig.getInt("db.pool.max.size", 10),
+                    AppConfig.getLong("db.pool.idle.timeout.ms", 300000),
+                    AppConfig.getLong("db.pool.borrow.timeout.ms", 5000),
+                    AppConfig.getLong("db.pool.validation.interval.ms", 500),
+                    AppConfig.getInt("db.pool.validation.timeout.seconds", 2),
+                    AppConfig.getInt("db.pool.connect.retries", 3),
+                    AppConfig.getLong("db.pool.retry.delay.ms", 1000)
+            );
             logger.info("Database properties loaded successfully.");
-        } catch (IOException e) {
+            return created;
+        } catch (IllegalArgumentException e) {
             logger.error("Failed to load database properties: {}", e.getMessage(), e);
             throw new RuntimeException("Database configuration failed", e);
         }
     }
 
     /**
-     * Gets a database connection with retry logic.
+     * Borrows a pooled database connection. Closing it returns it to the pool.
      * @return Connection object
-     * @throws SQLException if connection fails after retries
+     * @throws SQLException if no connection is available within the borrow timeout
      */
     public static Connection getConnection() throws SQLException {
-        int attempts = 0;
-        while (attempts < MAX_RETRIES) {
-            try {
-                Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-                logger.debug("Database connection established.");
-                return conn;
-            } catch (SQLException e) {
-                attempts++;
-                logger.warn("Connection attempt {}/{} failed: {}", attempts, MAX_RETRIES, e.getMessage());
-                if (attempts == MAX_RETRIES) {
-                    logger.error("Failed to connect after {} attempts.", MAX_RETRIES, e);
-                    throw e;
-                }
-                try {
-                    Thread.sleep(RETRY_DELAY_MS);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Interrupted during retry.", ie);
-                    throw new SQLException("Interrupted during retry", ie);
-                }
-            }
-        }
-        throw new SQLException("Failed to connect after " + MAX_RETRIES + " attempts");
+        return pool().borrow();
+    }
+
+    /**
+     * @return Number of connections currently borrowed, 0 if no pool is open
+     */
+    public static int getActiveConnections() {
+        ConnectionPool current = pool;
+        return current != null ? current.getActiveCount() : 0;
+    }
+
+    /**
+     * @return Number of open connections waiting in the pool, 0 if no pool is open
+     */
+    public static int getIdleConnections() {
+        ConnectionPool current = pool;
+        return current != null ? current.getIdleCount() : 0;
+    }
+
+    /**
+     * @return Number of threads waiting for a connection, 0 if no pool is open
+     */
+    public static int getWaitingThreads() {
+        ConnectionPool current = pool;
+        return current != null ? current.getWaitingCount() : 0;
+    }
+
+    /**
+     * Closes all pooled connections and stops pool housekeeping. Does nothing if no pool
+     * was opened.
+     */
+    public static synchronized void shutdown() {
+        if (pool == null) return;
+        pool.close();
+        pool = null;
+        logger.info("Database connection pool closed.");
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,103 @@
 package com.railway.dao;
 
+import com.railway.config.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Initializes the railway database and tables.
+ * Provisioning is recorded in an inventory_meta row (schema version and seat count), so a
+ * restart against an up-to-date database costs a single query. Missing seats are inserted
+ * with multi-row statements, split into ranges that run in parallel on pooled connections.
  */
 public class DatabaseInitializer {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
+    /** Bump when the schema or its indexes change, so existing databases are migrated. */
+    static final int SCHEMA_VERSION = 6;
+    private static final String INVENTORY = "seats";
 
     /**
      * Initializes the database with schema and seats.
      * @param totalSeats Number of seats to initialize
      */
     public static void initializeDatabase(int totalSeats) {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("CREATE DATABASE IF NOT EXISTS railway_db");
-            stmt.execute("USE railway_db");
+        long start = System.nanoTime();
+        try {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (isProvisioned(conn, totalSeats)) {
+                    logger.info("Database already provisioned with {} seats (schema v{}), checked in {} ms.",
+                            totalSeats, SCHEMA_VERSION, (System.nanoTime() - start) / 1_000_000);
+                    return;
+                }
+                createSchema(conn);
+            }
+            int inserted = provisionSeats(totalSeats);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                recordProvisioned(conn, totalSeats);
+            }
+            logger.info("Database initialized with {} seats ({} new, schema v{}) in {} ms.", totalSeats, inserted,
+                    SCHEMA_VERSION, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            logger.error("Database initialization failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to initialize database", e);
+        }
+    }
+
+    private static boolean isProvisioned(Connection conn, int totalSeats) throws SQLException {
+        String sql = "SELECT schema_version, seat_count FROM inventory_meta WHERE name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, INVENTORY);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt("schema_version") == SCHEMA_VERSION && rs.getInt("seat_count") >= totalSeats;
+            }
+        } catch (SQLException e) {
+            // First start: the database or the inventory_meta table does not exist yet.
+            logger.debug("No provisioning record: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (isMySql(conn)) {
+                stmt.execute("CREATE DATABASE IF NOT EXISTS railway_db");
+                stmt.execute("USE railway_db");
+            }
             stmt.execute(
                     "CREATE TABLE IF NOT EXISTS bookings (" +
                             "id INT PRIMARY KEY AUTO_INCREMENT, " +
                             "user_name VARCHAR(50) NOT NULL, " +
                             "seats_booked INT NOT NULL, " +
                             "booking_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                            "status ENUM('CONFIRMED', 'WAITLISTED', 'CANCELLED') DEFAULT 'CONFIRMED')"
+                            "status ENUM('CONFIRMED', 'WAITLISTED', 'CANCELLED') DEFAULT 'CONFIRMED', " +
+                            "from_stop INT NULL, " +
+                            "to_stop INT NULL, " +
+                            "request_id VARCHAR(64) NULL)"
             );
+            ensureColumn(conn, "bookings", "from_stop", "INT NULL");
+            ensureColumn(conn, "bookings", "to_stop", "INT NULL");
+            ensureColumn(conn, "bookings", "request_id", "VARCHAR(64) NULL");
+            ensureIndex(conn, "bookings", "uq_bookings_request_id", "request_id", true);
+            ensureIndex(conn, "bookings", "idx_bookings_user_status", "user_name, status", false);
+            // History queries page by id under each filter (BookingDAO.findBookings); InnoDB
+            // secondary indexes end in the primary key, so user_name + status is covered above.
+            ensureIndex(conn, "bookings", "idx_bookings_user_id", "user_name, id", false);
+            ensureIndex(conn, "bookings", "idx_bookings_status_id", "status, id", false);
+            ensureIndex(conn, "bookings", "idx_bookings_time", "booking_time, id", false);
             stmt.execute(
                     "CREATE TABLE IF NOT EXISTS seats (" +
                             "seat_id INT PRIMARY KEY, " +
@@ -37,13 +105,169 @@ public class DatabaseInitializer {
                             "booking_id INT, " +
                             "FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE SET NULL)"
             );
-            for (int i = 1; i <= totalSeats; i++) {
-                stmt.execute("INSERT IGNORE INTO seats (seat_id, is_booked) VALUES (" + i + ", FALSE)");
+            stmt.execute(
+                    "CREATE TABLE IF NOT EXISTS seat_legs (" +
+                            "booking_id INT NOT NULL, " +
+                            "seat_id INT NOT NULL, " +
+                            "PRIMARY KEY (booking_id, seat_id), " +
+                            "FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE, " +
+                            "FOREIGN KEY (seat_id) REFERENCES seats(seat_id))"
+            );
+            stmt.execute(
+                    "CREATE TABLE IF NOT EXISTS notifications (" +
+                            "id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                            "booking_id INT NOT NULL, " +
+                            "user_name VARCHAR(50) NOT NULL, " +
+                            "type VARCHAR(16) NOT NULL, " +
+                            "seats INT NOT NULL, " +
+                            "status ENUM('PENDING', 'FAILED') DEFAULT 'PENDING', " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                            "FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE)"
+            );
+            ensureIndex(conn, "notifications", "idx_notifications_status", "status, id", false);
+            stmt.execute(
+                    "CREATE TABLE IF NOT EXISTS inventory_meta (" +
+                            "name VARCHAR(50) PRIMARY KEY, " +
+                            "schema_version INT NOT NULL, " +
+                            "seat_count INT NOT NULL, " +
+                            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+            );
+        }
+    }
+
+    /**
+     * Inserts missing seats. If seat IDs are contiguous only the seats above the highest
+     * existing ID are inserted; otherwise the whole range is re-inserted with INSERT IGNORE.
+     * @return Number of seats inserted
+     */
+    private static int provisionSeats(int totalSeats) throws SQLException {
+        int from;
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COALESCE(MAX(seat_id), 0) FROM seats")) {
+            rs.next();
+            from = rs.getInt(1) == rs.getInt(2) ? rs.getInt(2) + 1 : 1;
+        }
+        if (from > totalSeats) return 0;
+        int rowsPerStatement = Math.max(1, AppConfig.getInt("provision.batch.rows", 1000));
+        int threads = Math.max(1, Math.min(AppConfig.getInt("provision.threads", 4), AppConfig.getInt("db.pool.max.size", 10)));
+        int rangeSize = Math.max(rowsPerStatement, (totalSeats - from + threads) / threads);
+        List<Callable<Integer>> ranges = new ArrayList<>();
+        for (int first = from; first <= totalSeats; first += rangeSize) {
+            int rangeStart = first;
+            int rangeEnd = Math.min(totalSeats, first + rangeSize - 1);
+            ranges.add(() -> insertSeats(rangeStart, rangeEnd, rowsPerStatement));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, ranges.size()));
+        try {
+            int inserted = 0;
+            for (Future<Integer> result : executor.invokeAll(ranges)) {
+                inserted += result.get();
+            }
+            return inserted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Seat provisioning interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SQLException sql ? sql : new SQLException("Seat provisioning failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int insertSeats(int first, int last, int rowsPerStatement) throws SQLException {
+        int inserted = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                StringBuilder sql = new StringBuilder(32 + rowsPerStatement * 10);
+                for (int seatId = first; seatId <= last; seatId += rowsPerStatement) {
+                    sql.setLength(0);
+                    sql.append("INSERT IGNORE INTO seats (seat_id, is_booked) VALUES ");
+                    int end = Math.min(last, seatId + rowsPerStatement - 1);
+                    for (int i = seatId; i <= end; i++) {
+                        sql.append(i == seatId ? "(" : ", (").append(i).append(", FALSE)");
+                    }
+                    inserted += stmt.executeUpdate(sql.toString());
+                }
+                conn.commit();
+                return inserted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            logger.info("Database initialized with {} seats.", totalSeats);
-        } catch (SQLException e) {
-            logger.error("Database initialization failed: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to initialize database", e);
         }
     }
+
+    private static void recordProvisioned(Connection conn, int totalSeats) throws SQLException {
+        String update = "UPDATE inventory_meta SET schema_version = ?, seat_count = ?, updated_at = CURRENT_TIMESTAMP WHERE name = ?";
+        String insert = "INSERT INTO inventory_meta (name, schema_version, seat_count) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(update)) {
+            stmt.setInt(1, SCHEMA_VERSION);
+            stmt.setInt(2, totalSeats);
+            stmt.setString(3, INVENTORY);
+            if (stmt.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+            stmt.setString(1, INVENTORY);
+            stmt.setInt(2, SCHEMA_VERSION);
+            stmt.setInt(3, totalSeats);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates an index on an existing table if it is missing.
+     * Uses JDBC metadata so it works on MySQL and on embedded test databases.
+     * @param conn Open connection
+     * @param table Table name
+     * @param indexName Index name
+     * @param columns Comma-separated column list
+     * @param unique true for a unique index
+     * @throws SQLException on database error
+     */
+    private static void ensureIndex(Connection conn, String table, String indexName, String columns, boolean unique)
+            throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String metaTable = meta.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, metaTable, false, true)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName + " ON " + table + " (" + columns + ")");
+            logger.info("Created index {} on {}({}).", indexName, table, columns);
+        }
+    }
+
+    /**
+     * Adds a column to an existing table if it is missing.
+     * @param conn Open connection
+     * @param table Table name
+     * @param column Column name
+     * @param definition Column type and constraints
+     * @throws SQLException on database error
+     */
+    private static void ensureColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        boolean upper = meta.storesUpperCaseIdentifiers();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, upper ? table.toUpperCase() : table,
+                upper ? column.toUpperCase() : column)) {
+            if (rs.next()) return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            logger.info("Added column {} to {}.", column, table);
+        }
+    }
+
+    /**
+     * @param conn Open connection
+     * @return true if the connection is to MySQL
+     * @throws SQLException on database error
+     */
+    static boolean isMySql(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
 }
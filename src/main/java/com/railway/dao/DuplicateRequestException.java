@@ -0,0 +1,27 @@
+package com.railway.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a booking is added with a client request ID that an existing booking
+ * already used, i.e. the request is a replay of one that was committed.
+ */
+public class DuplicateRequestException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final String requestId;
+    private final int bookingId;
+
+    public DuplicateRequestException(String requestId, int bookingId) {
+        super("Request " + requestId + " already created booking " + bookingId);
+        this.requestId = requestId;
+        this.bookingId = bookingId;
+    }
+
+    public String getRequestId() { return requestId; }
+
+    /**
+     * @return ID of the booking created by the original request
+     */
+    public int getBookingId() { return bookingId; }
+}
@@ -0,0 +1,704 @@
+package com.railway.dao;
+
+import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.Notification;
+import com.railway.model.SeatRelease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded BookingStore that keeps everything in process memory; nothing survives a restart.
+ * Bookings live in a concurrent sorted map, so reads and streams never block writers,
+ * and seats are primitive arrays. Writes are serialized by one lock, validate every
+ * step first and then commit a list of mutations, which makes each operation atomic
+ * like a transaction; an operation's outbox notifications are among its mutations.
+ * Subclasses may persist the mutations by overriding commit.
+ * Errors are reported as SQLException with the same messages as BookingDAO.
+ */
+public class InMemoryBookingStore implements BookingStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryBookingStore.class);
+    protected final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Integer, Booking> bookings = new ConcurrentSkipListMap<>();
+    private int nextId = 1;
+    private boolean[] booked = new boolean[0];
+    private int[] owners = new int[0];
+    private final Map<Integer, Set<Integer>> legSeats = new HashMap<>();
+    /** Reverse of legSeats: seat ID to the leg bookings holding it. */
+    private final Map<Integer, Set<Integer>> legHolders = new HashMap<>();
+    private final Map<String, Integer> requestIds = new HashMap<>();
+    /** Booking IDs per user name, so user history queries skip other users' bookings. */
+    private final Map<String, NavigableSet<Integer>> userBookings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Notification> outbox = new ConcurrentSkipListMap<>();
+    private int nextNotificationId = 1;
+
+    /**
+     * One state change. Every mutation sets absolute values, so applying it again is harmless.
+     * @param type INSERT, STATUS, ASSIGN, FREE, SEAT, HOLD, UNHOLD, REQUEST, NOTIFY or NOTIFIED
+     * @param bookingId Booking ID (seat owner for SEAT, 0 for none)
+     * @param seatsBooked Seats booked (INSERT, STATUS, NOTIFY), or 1/0 booked flag (SEAT)
+     * @param status Booking status (INSERT, STATUS), or notification type (NOTIFY)
+     * @param userName User name (INSERT), or client request ID (REQUEST)
+     * @param time Booking time (INSERT), or notification time (NOTIFY)
+     * @param seatIds Seats (ASSIGN, FREE, SEAT, HOLD, UNHOLD), or notification IDs (NOTIFY, NOTIFIED)
+     * @param leg Leg of the booking, null for the full journey (INSERT)
+     */
+    protected record Mutation(byte type, int bookingId, int seatsBooked, String status, String userName,
+                              LocalDateTime time, int[] seatIds, Leg leg) {
+        public static final byte INSERT = 1;
+        public static final byte STATUS = 2;
+        public static final byte ASSIGN = 3;
+        public static final byte FREE = 4;
+        /** Written by the former updateSeat; only replayed from older journals. */
+        public static final byte SEAT = 5;
+        public static final byte HOLD = 6;
+        public static final byte UNHOLD = 7;
+        public static final byte REQUEST = 8;
+        public static final byte NOTIFY = 9;
+        public static final byte NOTIFIED = 10;
+
+        static Mutation insert(int bookingId, String userName, int seatsBooked, LocalDateTime time, String status,
+                               Leg leg) {
+            return new Mutation(INSERT, bookingId, seatsBooked, status, userName, time, null, leg);
+        }
+
+        static Mutation status(int bookingId, int seatsBooked, String status) {
+            return new Mutation(STATUS, bookingId, seatsBooked, status, null, null, null, null);
+        }
+
+        static Mutation assign(int bookingId, int[] seatIds) {
+            return new Mutation(ASSIGN, bookingId, 0, null, null, null, seatIds, null);
+        }
+
+        static Mutation free(int[] seatIds) {
+            return new Mutation(FREE, 0, 0, null, null, null, seatIds, null);
+        }
+
+        static Mutation hold(int bookingId, int[] seatIds) {
+            return new Mutation(HOLD, bookingId, 0, null, null, null, seatIds, null);
+        }
+
+        static Mutation unhold(int bookingId, int[] seatIds) {
+            return new Mutation(UNHOLD, bookingId, 0, null, null, null, seatIds, null);
+        }
+
+        static Mutation request(int bookingId, String requestId) {
+            return new Mutation(REQUEST, bookingId, 0, null, requestId, null, null, null);
+        }
+
+        static Mutation notify(int notificationId, int bookingId, String type, int seats, LocalDateTime time) {
+            return new Mutation(NOTIFY, bookingId, seats, type, null, time, new int[]{notificationId}, null);
+        }
+
+        static Mutation notified(int[] notificationIds) {
+            return new Mutation(NOTIFIED, 0, 0, null, null, null, notificationIds, null);
+        }
+    }
+
+    @Override
+    public void initialize(int totalSeats) {
+        writeLock.lock();
+        try {
+            ensureSeats(totalSeats);
+            logger.info("In-memory store initialized with {} seats.", booked.length);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int addBooking(Booking booking) throws SQLException {
+        if (booking.getUserName() == null || booking.getUserName().isEmpty() || booking.getSeatsBooked() <= 0) {
+            logger.error("Invalid booking data: {}", booking);
+            throw new IllegalArgumentException("Invalid booking data");
+        }
+        writeLock.lock();
+        try {
+            checkRequestId(booking);
+            int bookingId = nextId++;
+            LocalDateTime now = LocalDateTime.now();
+            commit(withRequestId(booking, bookingId,
+                    Mutation.insert(bookingId, booking.getUserName(), booking.getSeatsBooked(), now,
+                            booking.getStatus(), booking.getLeg()),
+                    notification(bookingId, booking.getStatus(), booking.getSeatsBooked(), now)));
+            logger.info("Added booking: {}", booking);
+            return bookingId;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int addConfirmedBooking(Booking booking, int[] seatIds) throws SQLException {
+        if (booking.getUserName() == null || booking.getUserName().isEmpty() || seatIds.length == 0) {
+            logger.error("Invalid booking data: {}", booking);
+            throw new IllegalArgumentException("Invalid booking data");
+        }
+        writeLock.lock();
+        try {
+            checkRequestId(booking);
+            if (booking.getLeg() == null) {
+                checkAssignable(nextId, seatIds);
+            } else {
+                checkHoldable(nextId, seatIds, booking.getLeg());
+            }
+            int bookingId = nextId++;
+            LocalDateTime now = LocalDateTime.now();
+            commit(withRequestId(booking, bookingId,
+                    Mutation.insert(bookingId, booking.getUserName(), booking.getSeatsBooked(), now,
+                            "CONFIRMED", booking.getLeg()),
+                    booking.getLeg() == null
+                            ? Mutation.assign(bookingId, seatIds.clone())
+                            : Mutation.hold(bookingId, seatIds.clone()),
+                    notification(bookingId, Notification.CONFIRMED, booking.getSeatsBooked(), now)));
+            logger.info("Added booking {} with seats {}", bookingId, Arrays.toString(seatIds));
+            return bookingId;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean confirmWaitlistedBooking(int bookingId, int[] seatIds) throws SQLException {
+        writeLock.lock();
+        try {
+            Booking booking = bookings.get(bookingId);
+            if (booking == null || !"WAITLISTED".equals(booking.getStatus())) {
+                return false;
+            }
+            checkAssignable(bookingId, seatIds);
+            commit(List.of(
+                    Mutation.status(bookingId, booking.getSeatsBooked(), "CONFIRMED"),
+                    Mutation.assign(bookingId, seatIds.clone()),
+                    notification(bookingId, Notification.PROMOTED, booking.getSeatsBooked(), LocalDateTime.now())));
+            logger.info("Confirmed waitlisted booking {} with seats {}", bookingId, Arrays.toString(seatIds));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int[] addBookings(List<Booking> bookings, List<int[]> seatIds) throws SQLException {
+        if (bookings.stream().anyMatch(booking -> booking.getLeg() != null)) {
+            throw new IllegalArgumentException("Leg bookings must be added with addConfirmedBooking");
+        }
+        writeLock.lock();
+        try {
+            boolean[] claimed = new boolean[booked.length];
+            int seatCount = 0;
+            Set<String> batchRequestIds = new HashSet<>();
+            for (int i = 0; i < bookings.size(); i++) {
+                checkRequestId(bookings.get(i));
+                String requestId = bookings.get(i).getRequestId();
+                if (requestId != null && !batchRequestIds.add(requestId)) {
+                    throw new SQLException("Duplicate request ID " + requestId + " in group of " + bookings.size() + " bookings");
+                }
+                if (seatIds.get(i) == null) continue;
+                checkAssignable(nextId + i, seatIds.get(i));
+                for (int seatId : seatIds.get(i)) {
+                    if (claimed[seatId - 1]) {
+                        throw new SQLException("Seat assignment failed in group of " + bookings.size() + " bookings");
+                    }
+                    claimed[seatId - 1] = true;
+                    seatCount++;
+                }
+            }
+            int[] bookingIds = new int[bookings.size()];
+            List<Mutation> mutations = new ArrayList<>(3 * bookingIds.length);
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < bookingIds.length; i++) {
+                Booking booking = bookings.get(i);
+                bookingIds[i] = nextId++;
+                mutations.add(Mutation.insert(bookingIds[i], booking.getUserName(), booking.getSeatsBooked(), now,
+                        booking.getStatus(), null));
+                if (seatIds.get(i) != null) {
+                    mutations.add(Mutation.assign(bookingIds[i], seatIds.get(i).clone()));
+                }
+                if (booking.getRequestId() != null) {
+                    mutations.add(Mutation.request(bookingIds[i], booking.getRequestId()));
+                }
+                mutations.add(notification(bookingIds[i], booking.getStatus(), booking.getSeatsBooked(), now));
+            }
+            commit(mutations);
+            logger.info("Added {} bookings with {} seats in one transaction.", bookingIds.length, seatCount);
+            return bookingIds;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void cancelSeats(List<SeatRelease> releases) throws SQLException {
+        writeLock.lock();
+        try {
+            List<Mutation> mutations = new ArrayList<>(3 * releases.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (SeatRelease release : releases) {
+                Booking booking = bookings.get(release.getBookingId());
+                if (booking == null || !"CONFIRMED".equals(booking.getStatus())) {
+                    throw new SQLException("Booking " + release.getBookingId() + " is no longer confirmed");
+                }
+                int[] seats = release.getSeatIds();
+                Set<Integer> held = legSeats.getOrDefault(release.getBookingId(), Set.of());
+                int freed = 0;
+                for (int seatId : seats) {
+                    boolean holds = release.getLeg() != null
+                            ? held.contains(seatId)
+                            : isValidSeat(seatId) && booked[seatId - 1] && owners[seatId - 1] == release.getBookingId();
+                    if (holds) freed++;
+                }
+                if (freed != seats.length) {
+                    throw new SQLException("Expected to free " + seats.length + " seats of booking "
+                            + release.getBookingId() + ", freed " + freed);
+                }
+                mutations.add(release.isFullCancellation()
+                        ? Mutation.status(booking.getId(), booking.getSeatsBooked(), "CANCELLED")
+                        : Mutation.status(booking.getId(), release.getRemainingSeats(), "CONFIRMED"));
+                mutations.add(release.getLeg() != null ? Mutation.unhold(booking.getId(), seats) : Mutation.free(seats));
+                mutations.add(notification(booking.getId(), Notification.CANCELLED, seats.length, now));
+            }
+            commit(mutations);
+            logger.info("Released seats: {}", releases);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> getBookedSeats() {
+        Map<Integer, Integer> bookedSeats = new HashMap<>();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < booked.length; i++) {
+                if (booked[i]) bookedSeats.put(i + 1, owners[i]);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return bookedSeats;
+    }
+
+    @Override
+    public Map<Integer, List<Leg>> getHeldLegs() {
+        Map<Integer, List<Leg>> heldLegs = new HashMap<>();
+        writeLock.lock();
+        try {
+            legSeats.forEach((bookingId, held) -> {
+                Booking booking = bookings.get(bookingId);
+                if (booking == null || !"CONFIRMED".equals(booking.getStatus())) return;
+                for (int seatId : held) {
+                    heldLegs.computeIfAbsent(seatId, id -> new ArrayList<>()).add(booking.getLeg());
+                }
+            });
+        } finally {
+            writeLock.unlock();
+        }
+        return heldLegs;
+    }
+
+    @Override
+    public Map<Integer, int[]> getUserSeats(String userName) {
+        Map<Integer, int[]> seats = new HashMap<>();
+        writeLock.lock();
+        try {
+            NavigableSet<Integer> ids = userBookings.getOrDefault(userName, Collections.emptyNavigableSet());
+            for (int i = 0; i < booked.length; i++) {
+                if (booked[i] && ids.contains(owners[i])) {
+                    seats.merge(owners[i], new int[] {i + 1}, InMemoryBookingStore::concat);
+                }
+            }
+            for (int bookingId : ids) {
+                Booking booking = bookings.get(bookingId);
+                Set<Integer> held = legSeats.get(bookingId);
+                if (booking != null && "CONFIRMED".equals(booking.getStatus()) && held != null && !held.isEmpty()) {
+                    seats.put(bookingId, held.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return seats;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    @Override
+    public Map<Integer, int[]> getLegSeats() {
+        Map<Integer, int[]> seats = new HashMap<>();
+        writeLock.lock();
+        try {
+            legSeats.forEach((bookingId, held) -> {
+                Booking booking = bookings.get(bookingId);
+                if (booking != null && "CONFIRMED".equals(booking.getStatus()) && !held.isEmpty()) {
+                    seats.put(bookingId, held.stream().mapToInt(Integer::intValue).toArray());
+                }
+            });
+        } finally {
+            writeLock.unlock();
+        }
+        return seats;
+    }
+
+    @Override
+    public BookingPage findBookings(BookingQuery query, int cursor, int limit) {
+        int pageSize = Math.max(1, limit);
+        List<Booking> page = new ArrayList<>(Math.min(pageSize, 1000));
+        for (Booking booking : scan(query, cursor)) {
+            if (!query.matches(booking)) continue;
+            if (page.size() == pageSize) return new BookingPage(page, true);
+            page.add(booking);
+        }
+        return new BookingPage(page, false);
+    }
+
+    @Override
+    public void streamBookings(BookingQuery query, int cursor, int fetchSize, BookingRowHandler handler)
+            throws IOException {
+        for (Booking booking : scan(query, cursor)) {
+            if (query.matches(booking)) handler.handle(booking);
+        }
+    }
+
+    /**
+     * Weakly consistent view of the bookings after a cursor in query order; for a user
+     * query only that user's bookings.
+     */
+    private Iterable<Booking> scan(BookingQuery query, int cursor) {
+        if (query.getUserName() != null) {
+            NavigableSet<Integer> ids = userBookings.get(query.getUserName());
+            if (ids == null) return List.of();
+            NavigableSet<Integer> range = cursor <= 0 ? ids
+                    : query.isNewestFirst() ? ids.headSet(cursor, false) : ids.tailSet(cursor, false);
+            NavigableSet<Integer> ordered = query.isNewestFirst() ? range.descendingSet() : range;
+            return () -> ordered.stream().map(bookings::get).filter(booking -> booking != null).iterator();
+        }
+        var range = cursor <= 0 ? bookings
+                : query.isNewestFirst() ? bookings.headMap(cursor, false) : bookings.tailMap(cursor, false);
+        return query.isNewestFirst() ? range.descendingMap().values() : range.values();
+    }
+
+    @Override
+    public List<Booking> getConfirmedBookings() {
+        Set<Integer> ids = new LinkedHashSet<>();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < booked.length; i++) {
+                if (booked[i] && owners[i] != 0) ids.add(owners[i]);
+            }
+            legSeats.forEach((bookingId, held) -> {
+                if (!held.isEmpty()) ids.add(bookingId);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+        List<Booking> confirmed = new ArrayList<>();
+        for (int id : ids) {
+            Booking booking = bookings.get(id);
+            if (booking != null && "CONFIRMED".equals(booking.getStatus())) confirmed.add(booking);
+        }
+        return confirmed;
+    }
+
+    @Override
+    public List<Booking> getWaitlistedBookings() {
+        List<Booking> waitlisted = new ArrayList<>();
+        for (Booking booking : bookings.values()) {
+            if ("WAITLISTED".equals(booking.getStatus())) waitlisted.add(booking);
+        }
+        return waitlisted;
+    }
+
+    @Override
+    public long countBookingsAfter(int afterId) {
+        return bookings.tailMap(afterId, false).size();
+    }
+
+    @Override
+    public BookingStats loadBookingStats() {
+        long[] counts = new long[3];
+        long[] seats = new long[3];
+        for (Booking booking : bookings.values()) {
+            int i = switch (booking.getStatus()) {
+                case "CONFIRMED" -> 0;
+                case "WAITLISTED" -> 1;
+                default -> 2;
+            };
+            counts[i]++;
+            seats[i] += booking.getSeatsBooked();
+        }
+        return new BookingStats(counts[0], counts[1], counts[2], seats[0], seats[1]);
+    }
+
+    @Override
+    public List<Notification> getPendingNotifications(long afterId, int limit) {
+        List<Notification> pending = new ArrayList<>(Math.min(limit, 1024));
+        for (Notification notification : outbox.tailMap(afterId, false).values()) {
+            if (pending.size() >= limit) break;
+            pending.add(notification);
+        }
+        return pending;
+    }
+
+    @Override
+    public void completeNotifications(long[] ids, boolean delivered) throws SQLException {
+        int[] notificationIds = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            notificationIds[i] = (int) ids[i];
+        }
+        writeLock.lock();
+        try {
+            commit(List.of(Mutation.notified(notificationIds)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Makes a validated operation take effect. Called with writeLock held; if it throws,
+     * none of the mutations may have been applied.
+     * @param mutations Mutations of one operation, in order
+     * @throws SQLException if the operation cannot be made durable
+     */
+    protected void commit(List<Mutation> mutations) throws SQLException {
+        mutations.forEach(this::apply);
+    }
+
+    /**
+     * Applies one mutation to the in-memory state. Called with writeLock held.
+     * @param mutation Mutation
+     */
+    protected void apply(Mutation mutation) {
+        switch (mutation.type()) {
+            case Mutation.INSERT -> {
+                bookings.put(mutation.bookingId(), new Booking(mutation.bookingId(), mutation.userName(),
+                        mutation.seatsBooked(), mutation.time(), mutation.status(), mutation.leg()));
+                userBookings.computeIfAbsent(mutation.userName(), user -> new ConcurrentSkipListSet<>())
+                        .add(mutation.bookingId());
+            }
+            case Mutation.STATUS -> bookings.computeIfPresent(mutation.bookingId(), (id, booking) -> new Booking(id,
+                    booking.getUserName(), mutation.seatsBooked(), booking.getBookingTime(), mutation.status(),
+                    booking.getLeg()));
+            case Mutation.REQUEST -> requestIds.put(mutation.userName(), mutation.bookingId());
+            case Mutation.NOTIFY -> {
+                int notificationId = mutation.seatIds()[0];
+                Booking booking = bookings.get(mutation.bookingId());
+                outbox.put((long) notificationId, new Notification(notificationId, mutation.bookingId(),
+                        booking != null ? booking.getUserName() : null, mutation.status(), mutation.seatsBooked(),
+                        mutation.time()));
+                nextNotificationId = Math.max(nextNotificationId, notificationId + 1);
+            }
+            case Mutation.NOTIFIED -> {
+                for (int notificationId : mutation.seatIds()) {
+                    outbox.remove((long) notificationId);
+                }
+            }
+            case Mutation.HOLD -> {
+                Set<Integer> held = legSeats.computeIfAbsent(mutation.bookingId(), id -> new TreeSet<>());
+                for (int seatId : mutation.seatIds()) {
+                    held.add(seatId);
+                    legHolders.computeIfAbsent(seatId, id -> new TreeSet<>()).add(mutation.bookingId());
+                }
+            }
+            case Mutation.UNHOLD -> {
+                Set<Integer> held = legSeats.get(mutation.bookingId());
+                if (held != null) {
+                    for (int seatId : mutation.seatIds()) {
+                        held.remove(seatId);
+                        Set<Integer> holders = legHolders.get(seatId);
+                        if (holders != null && holders.remove(mutation.bookingId()) && holders.isEmpty()) {
+                            legHolders.remove(seatId);
+                        }
+                    }
+                    if (held.isEmpty()) legSeats.remove(mutation.bookingId());
+                }
+            }
+            case Mutation.ASSIGN, Mutation.FREE, Mutation.SEAT -> {
+                boolean isBooked = mutation.type() == Mutation.ASSIGN || mutation.seatsBooked() == 1;
+                int owner = mutation.type() == Mutation.FREE ? 0 : mutation.bookingId();
+                for (int seatId : mutation.seatIds()) {
+                    ensureSeats(seatId);
+                    booked[seatId - 1] = isBooked;
+                    owners[seatId - 1] = owner;
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown mutation type " + mutation.type());
+        }
+        if (mutation.bookingId() >= nextId && mutation.type() != Mutation.SEAT) {
+            nextId = mutation.bookingId() + 1;
+        }
+    }
+
+    /**
+     * @return Live, weakly consistent view of all bookings in ID order
+     */
+    protected Collection<Booking> bookingsView() {
+        return bookings.values();
+    }
+
+    /**
+     * Encodes seat state compactly. Called with writeLock held.
+     * @return Per seat, 0 if free, otherwise owning booking ID + 1
+     */
+    protected int[] encodeSeats() {
+        int[] encoded = new int[booked.length];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = booked[i] ? owners[i] + 1 : 0;
+        }
+        return encoded;
+    }
+
+    /**
+     * Copies the seats held by leg bookings. Called with writeLock held.
+     * @return Map of booking ID to held seat IDs
+     */
+    protected Map<Integer, int[]> encodeLegSeats() {
+        Map<Integer, int[]> encoded = new HashMap<>();
+        legSeats.forEach((bookingId, held) -> encoded.put(bookingId, held.stream().mapToInt(Integer::intValue).toArray()));
+        return encoded;
+    }
+
+    /**
+     * Copies the client request IDs of bookings. Called with writeLock held.
+     * @return Map of request ID to booking ID
+     */
+    protected Map<String, Integer> encodeRequestIds() {
+        return new HashMap<>(requestIds);
+    }
+
+    /**
+     * @return Live view of undelivered notifications in ID order
+     */
+    protected Collection<Notification> outboxView() {
+        return outbox.values();
+    }
+
+    /**
+     * Restores seat state written by encodeSeats. Called with writeLock held.
+     * @param encoded Encoded seats
+     */
+    protected void restoreSeats(int[] encoded) {
+        ensureSeats(encoded.length);
+        for (int i = 0; i < encoded.length; i++) {
+            booked[i] = encoded[i] != 0;
+            owners[i] = Math.max(0, encoded[i] - 1);
+        }
+    }
+
+    private void ensureSeats(int totalSeats) {
+        if (totalSeats > booked.length) {
+            booked = Arrays.copyOf(booked, totalSeats);
+            owners = Arrays.copyOf(owners, totalSeats);
+        }
+    }
+
+    /**
+     * Checks that seats are free for the full journey: neither booked nor held for any leg.
+     * @throws SeatConflictException if any seat is taken
+     */
+    private void checkAssignable(int bookingId, int[] seatIds) throws SQLException {
+        int free = 0;
+        int[] taken = new int[seatIds.length];
+        int takenCount = 0;
+        for (int i = 0; i < seatIds.length; i++) {
+            int seatId = seatIds[i];
+            boolean duplicate = false;
+            for (int j = 0; j < i && !duplicate; j++) {
+                duplicate = seatIds[j] == seatId;
+            }
+            if (!isValidSeat(seatId) || duplicate) continue;
+            if (booked[seatId - 1] || legHolders.containsKey(seatId)) {
+                taken[takenCount++] = seatId;
+            } else {
+                free++;
+            }
+        }
+        if (takenCount > 0) {
+            throw new SeatConflictException(Arrays.copyOf(taken, takenCount));
+        }
+        if (free != seatIds.length) {
+            throw new SQLException("Expected to assign " + seatIds.length + " seats to booking " + bookingId
+                    + ", assigned " + free);
+        }
+    }
+
+    private void checkRequestId(Booking booking) throws DuplicateRequestException {
+        Integer existing = booking.getRequestId() != null ? requestIds.get(booking.getRequestId()) : null;
+        if (existing != null) {
+            logger.info("Request {} was already booked as booking {}.", booking.getRequestId(), existing);
+            throw new DuplicateRequestException(booking.getRequestId(), existing);
+        }
+    }
+
+    /**
+     * Builds the outbox entry for a booking change. Called with writeLock held.
+     */
+    private Mutation notification(int bookingId, String type, int seats, LocalDateTime time) {
+        return Mutation.notify(nextNotificationId++, bookingId, type, seats, time);
+    }
+
+    private static List<Mutation> withRequestId(Booking booking, int bookingId, Mutation... mutations) {
+        List<Mutation> all = new ArrayList<>(Arrays.asList(mutations));
+        if (booking.getRequestId() != null) {
+            all.add(Mutation.request(bookingId, booking.getRequestId()));
+        }
+        return all;
+    }
+
+    /**
+     * Checks that seats are free on a leg: not booked for the full journey and not held by
+     * another leg booking whose leg overlaps it.
+     * @throws SeatConflictException if any seat is taken on the leg
+     */
+    private void checkHoldable(int bookingId, int[] seatIds, Leg leg) throws SQLException {
+        long distinct = Arrays.stream(seatIds).filter(this::isValidSeat).distinct().count();
+        if (distinct != seatIds.length) {
+            throw new SQLException("Expected to assign " + seatIds.length + " seats to booking " + bookingId
+                    + ", assigned " + distinct);
+        }
+        int[] taken = Arrays.stream(seatIds).filter(seatId -> booked[seatId - 1] || overlapsHeldLeg(seatId, leg)).toArray();
+        if (taken.length > 0) {
+            throw new SeatConflictException(taken);
+        }
+    }
+
+    private boolean overlapsHeldLeg(int seatId, Leg leg) {
+        for (int holder : legHolders.getOrDefault(seatId, Set.of())) {
+            Booking holding = bookings.get(holder);
+            Leg held = holding != null ? holding.getLeg() : null;
+            if (held == null || held.getFromStop() < leg.getToStop() && held.getToStop() > leg.getFromStop()) return true;
+        }
+        return false;
+    }
+
+    private boolean isValidSeat(int seatId) {
+        return seatId >= 1 && seatId <= booked.length;
+    }
+}
@@ -0,0 +1,551 @@
+package com.railway.dao;
+
+import com.railway.config.AppConfig;
+import com.railway.model.Booking;
+import com.railway.model.Leg;
+import com.railway.model.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * BookingStore that persists every state change as fixed-size binary records appended
+ * to a memory-mapped journal, with periodic snapshots.
+ * State is held and served by the in-memory engine; a write operation becomes one or
+ * more 128-byte records, the last flagged as commit, appended sequentially. Replay
+ * applies an operation only when its commit record is present and every record's CRC
+ * matches, so a torn tail is discarded. Durability follows journal.sync: "always"
+ * forces the mapping after each operation, "batch" forces it every
+ * journal.sync.interval.ms, and "none" leaves write-back to the OS.
+ * <p>
+ * After journal.snapshot.records records, writers switch to a new journal generation and
+ * a background thread writes snapshot.bin (seat state, all bookings and the notification
+ * outbox) and deletes older
+ * journals. The snapshot may include changes made after the switch; since every
+ * mutation sets absolute values, replaying the new journal over it yields the same state.
+ * Startup loads the snapshot and replays only the journals from its generation on.
+ */
+public class JournalBookingStore extends InMemoryBookingStore {
+    private static final Logger logger = LoggerFactory.getLogger(JournalBookingStore.class);
+    static final int RECORD_SIZE = 128;
+    private static final int HEADER_SIZE = 28;
+    private static final int MAX_SEATS_PER_RECORD = (RECORD_SIZE - HEADER_SIZE) / 4;
+    /** INSERT records keep the booking's leg as two shorts at the end; 0/0 is the full journey. */
+    private static final int LEG_OFFSET = RECORD_SIZE - 4;
+    private static final int MAX_NAME_BYTES = LEG_OFFSET - HEADER_SIZE;
+    private static final byte FLAG_COMMIT = 1;
+    private static final int SNAPSHOT_MAGIC = 0x52424B53;
+    private static final int SNAPSHOT_VERSION = 4;
+    private static final String[] STATUSES = {null, "CONFIRMED", "WAITLISTED", "CANCELLED"};
+    /** NOTIFY records keep the notification type in the status byte. */
+    private static final String[] NOTIFICATION_TYPES = {null, Notification.CONFIRMED, Notification.WAITLISTED,
+            Notification.PROMOTED, Notification.CANCELLED};
+
+    private final Path dir;
+    private final String syncMode;
+    private final long snapshotEvery;
+    private final long mapBytes;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService background;
+    private boolean recovered;
+    private int generation;
+    private FileChannel channel;
+    private volatile MappedByteBuffer chunk;
+    private long chunkBase;
+    private long position;
+    private long recordsSinceSnapshot;
+    private boolean snapshotPending;
+
+    /**
+     * Constructs the store from the journal.* settings. Recovery runs in initialize.
+     */
+    public JournalBookingStore() {
+        this(Path.of(AppConfig.getString("journal.dir", "data/journal")),
+                AppConfig.getString("journal.sync", "batch").toLowerCase(),
+                AppConfig.getLong("journal.sync.interval.ms", 10),
+                AppConfig.getLong("journal.snapshot.records", 100_000),
+                AppConfig.getLong("journal.map.bytes", 16 << 20));
+    }
+
+    /**
+     * Constructs the store. Recovery runs in initialize.
+     * @param dir Directory for journal and snapshot files
+     * @param syncMode "always", "batch" or "none"
+     * @param syncIntervalMs Force interval in batch mode
+     * @param snapshotEvery Records between snapshots
+     * @param mapBytes Size of each mapped journal chunk
+     */
+    public JournalBookingStore(Path dir, String syncMode, long syncIntervalMs, long snapshotEvery, long mapBytes) {
+        if (!List.of("always", "batch", "none").contains(syncMode)) {
+            throw new IllegalArgumentException("journal.sync must be always, batch or none: " + syncMode);
+        }
+        this.dir = dir;
+        this.syncMode = syncMode;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.mapBytes = Math.max(1, Math.min(mapBytes, 1L << 30) / RECORD_SIZE) * RECORD_SIZE;
+        this.background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-background");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncMode.equals("batch")) {
+            background.scheduleWithFixedDelay(this::forceChunk, syncIntervalMs, Math.max(1, syncIntervalMs),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void initialize(int totalSeats) {
+        writeLock.lock();
+        try {
+            if (!recovered) {
+                recover();
+                recovered = true;
+            }
+        } catch (IOException e) {
+            logger.error("Journal recovery failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to recover journal in " + dir, e);
+        } finally {
+            writeLock.unlock();
+        }
+        super.initialize(totalSeats);
+    }
+
+    @Override
+    protected void commit(List<Mutation> mutations) throws SQLException {
+        if (channel == null) {
+            throw new SQLException("Journal store is not initialized");
+        }
+        long start = position;
+        int written = 0;
+        try {
+            for (int m = 0; m < mutations.size(); m++) {
+                Mutation mutation = mutations.get(m);
+                int[] seats = mutation.seatIds();
+                int parts = seats == null ? 1 : Math.max(1, (seats.length + MAX_SEATS_PER_RECORD - 1) / MAX_SEATS_PER_RECORD);
+                for (int p = 0; p < parts; p++) {
+                    boolean last = m == mutations.size() - 1 && p == parts - 1;
+                    encode(mutation, p * MAX_SEATS_PER_RECORD, last);
+                    append();
+                    written++;
+                }
+            }
+            if (syncMode.equals("always")) {
+                forceRange(start);
+            }
+        } catch (IOException | RuntimeException e) {
+            discard(start);
+            throw new SQLException("Journal write failed: " + e.getMessage(), e);
+        }
+        super.commit(mutations);
+        recordsSinceSnapshot += written;
+        if (recordsSinceSnapshot >= snapshotEvery && !snapshotPending) {
+            snapshotPending = true;
+            background.execute(this::snapshot);
+        }
+    }
+
+    private void encode(Mutation mutation, int seatOffset, boolean commit) {
+        record.clear();
+        Arrays.fill(record.array(), (byte) 0);
+        record.position(4);
+        record.put(mutation.type());
+        record.put(commit ? FLAG_COMMIT : 0);
+        record.put(mutation.type() == Mutation.NOTIFY
+                ? code(NOTIFICATION_TYPES, mutation.status())
+                : code(STATUSES, mutation.status()));
+        byte count = 0;
+        record.position(8);
+        record.putInt(mutation.bookingId());
+        record.putInt(mutation.seatsBooked());
+        LocalDateTime time = mutation.time();
+        record.putLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        record.putInt(time != null ? time.getNano() : 0);
+        if (mutation.userName() != null) {
+            byte[] name = mutation.userName().getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("User name too long for journal: " + mutation.userName());
+            }
+            record.put(name);
+            count = (byte) name.length;
+            if (mutation.leg() != null) {
+                record.putShort(LEG_OFFSET, (short) mutation.leg().getFromStop());
+                record.putShort(LEG_OFFSET + 2, (short) mutation.leg().getToStop());
+            }
+        } else if (mutation.seatIds() != null) {
+            int end = Math.min(mutation.seatIds().length, seatOffset + MAX_SEATS_PER_RECORD);
+            for (int i = seatOffset; i < end; i++) {
+                record.putInt(mutation.seatIds()[i]);
+            }
+            count = (byte) (end - seatOffset);
+        }
+        record.put(7, count);
+        crc.reset();
+        crc.update(record.array(), 4, RECORD_SIZE - 4);
+        record.putInt(0, (int) crc.getValue());
+    }
+
+    private void append() throws IOException {
+        MappedByteBuffer target = chunkFor(position);
+        target.put((int) (position - chunkBase), record.array());
+        position += RECORD_SIZE;
+    }
+
+    /**
+     * Zeroes records of a failed operation so they can never be replayed.
+     */
+    private void discard(long start) {
+        try {
+            byte[] zeros = new byte[RECORD_SIZE];
+            for (long pos = start; pos < position; pos += RECORD_SIZE) {
+                chunkFor(pos).put((int) (pos - chunkBase), zeros);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to discard journal records at {}: {}", start, e.getMessage(), e);
+        }
+        position = start;
+    }
+
+    private MappedByteBuffer chunkFor(long pos) throws IOException {
+        if (chunk == null || pos < chunkBase || pos + RECORD_SIZE > chunkBase + mapBytes) {
+            if (chunk != null && !syncMode.equals("none")) {
+                chunk.force();
+            }
+            chunkBase = pos / mapBytes * mapBytes;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkBase, mapBytes);
+        }
+        return chunk;
+    }
+
+    private void forceRange(long start) {
+        long from = Math.max(start, chunkBase);
+        chunk.force((int) (from - chunkBase), (int) (position - from));
+    }
+
+    private void forceChunk() {
+        MappedByteBuffer current = chunk;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+        int snapshotGeneration = loadSnapshot();
+        TreeMap<Integer, Path> journals = listJournals();
+        int replayed = 0;
+        long validEnd = 0;
+        for (var entry : journals.tailMap(snapshotGeneration, true).entrySet()) {
+            List<Mutation> pending = new ArrayList<>();
+            validEnd = 0;
+            try (FileChannel in = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                long size = in.size() / RECORD_SIZE * RECORD_SIZE;
+                byte[] bytes = new byte[RECORD_SIZE];
+                ByteBuffer view = ByteBuffer.wrap(bytes);
+                scan:
+                for (long base = 0; base < size; base += mapBytes) {
+                    MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, base, Math.min(mapBytes, size - base));
+                    for (int offset = 0; offset < mapped.limit(); offset += RECORD_SIZE) {
+                        mapped.get(offset, bytes);
+                        Mutation mutation = decode(view);
+                        if (mutation == null) break scan;
+                        pending.add(mutation);
+                        if ((bytes[5] & FLAG_COMMIT) != 0) {
+                            pending.forEach(this::apply);
+                            replayed += pending.size();
+                            pending.clear();
+                            validEnd = base + offset + RECORD_SIZE;
+                        }
+                    }
+                }
+            }
+            generation = entry.getKey();
+        }
+        if (journals.isEmpty() || journals.lastKey() < snapshotGeneration) {
+            generation = Math.max(snapshotGeneration, 1);
+            validEnd = 0;
+        }
+        openJournal(generation, false);
+        channel.truncate(validEnd);
+        position = validEnd;
+        logger.info("Recovered journal store from snapshot generation {} and {} journal records in {} ms.",
+                snapshotGeneration, replayed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Decodes a record read from a journal.
+     * @return Mutation, or null if the record is empty or corrupt (end of the valid log)
+     */
+    private Mutation decode(ByteBuffer view) {
+        byte[] bytes = view.array();
+        crc.reset();
+        crc.update(bytes, 4, RECORD_SIZE - 4);
+        if (bytes[4] == 0 || view.getInt(0) != (int) crc.getValue()) return null;
+        byte type = bytes[4];
+        String status = bytes[6] > 0 && bytes[6] < STATUSES.length ? STATUSES[bytes[6]] : null;
+        int count = bytes[7] & 0xff;
+        int bookingId = view.getInt(8);
+        int seatsBooked = view.getInt(12);
+        long seconds = view.getLong(16);
+        LocalDateTime time = seconds == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(seconds, view.getInt(24), ZoneOffset.UTC);
+        return switch (type) {
+            case Mutation.INSERT -> {
+                short toStop = view.getShort(LEG_OFFSET + 2);
+                yield Mutation.insert(bookingId, new String(bytes, HEADER_SIZE, count, StandardCharsets.UTF_8),
+                        seatsBooked, time, status, toStop == 0 ? null : new Leg(view.getShort(LEG_OFFSET), toStop));
+            }
+            case Mutation.STATUS -> Mutation.status(bookingId, seatsBooked, status);
+            case Mutation.REQUEST -> Mutation.request(bookingId, new String(bytes, HEADER_SIZE, count, StandardCharsets.UTF_8));
+            case Mutation.ASSIGN, Mutation.FREE, Mutation.SEAT, Mutation.HOLD, Mutation.UNHOLD, Mutation.NOTIFY,
+                    Mutation.NOTIFIED -> {
+                int[] seats = new int[count];
+                for (int i = 0; i < count; i++) {
+                    seats[i] = view.getInt(HEADER_SIZE + 4 * i);
+                }
+                String notificationType = type == Mutation.NOTIFY && bytes[6] > 0 && bytes[6] < NOTIFICATION_TYPES.length
+                        ? NOTIFICATION_TYPES[bytes[6]] : null;
+                yield new Mutation(type, bookingId, seatsBooked, notificationType, null, time, seats, null);
+            }
+            default -> null;
+        };
+    }
+
+    private void snapshot() {
+        int snapshotGeneration;
+        int[] seats;
+        Map<Integer, int[]> legSeats;
+        Map<String, Integer> requestIds;
+        writeLock.lock();
+        try {
+            snapshotGeneration = generation + 1;
+            openJournal(snapshotGeneration, true);
+            position = 0;
+            seats = encodeSeats();
+            legSeats = encodeLegSeats();
+            requestIds = encodeRequestIds();
+            recordsSinceSnapshot = 0;
+        } catch (IOException e) {
+            logger.error("Failed to start journal generation: {}", e.getMessage(), e);
+            snapshotPending = false;
+            return;
+        } finally {
+            writeLock.unlock();
+        }
+        long started = System.nanoTime();
+        Path temp = dir.resolve("snapshot.bin.tmp");
+        try {
+            long bookingCount = 0;
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(snapshotGeneration);
+                out.writeInt(seats.length);
+                for (int seat : seats) {
+                    out.writeInt(seat);
+                }
+                for (Booking booking : bookingsView()) {
+                    out.writeBoolean(true);
+                    out.writeInt(booking.getId());
+                    out.writeUTF(booking.getUserName());
+                    out.writeInt(booking.getSeatsBooked());
+                    LocalDateTime time = booking.getBookingTime();
+                    out.writeLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+                    out.writeInt(time != null ? time.getNano() : 0);
+                    out.writeByte(code(STATUSES, booking.getStatus()));
+                    Leg leg = booking.getLeg();
+                    out.writeByte(leg != null ? leg.getFromStop() : 0);
+                    out.writeByte(leg != null ? leg.getToStop() : 0);
+                    bookingCount++;
+                }
+                out.writeBoolean(false);
+                out.writeInt(legSeats.size());
+                for (var entry : legSeats.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    for (int seatId : entry.getValue()) {
+                        out.writeInt(seatId);
+                    }
+                }
+                out.writeInt(requestIds.size());
+                for (var entry : requestIds.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+                for (Notification notification : outboxView()) {
+                    out.writeBoolean(true);
+                    out.writeInt((int) notification.getId());
+                    out.writeInt(notification.getBookingId());
+                    out.writeByte(code(NOTIFICATION_TYPES, notification.getType()));
+                    out.writeInt(notification.getSeats());
+                    LocalDateTime time = notification.getCreatedAt();
+                    out.writeLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+                    out.writeInt(time != null ? time.getNano() : 0);
+                }
+                out.writeBoolean(false);
+                out.flush();
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (var entry : listJournals().headMap(snapshotGeneration).entrySet()) {
+                Files.deleteIfExists(entry.getValue());
+            }
+            logger.info("Wrote journal snapshot generation {} with {} bookings in {} ms.", snapshotGeneration,
+                    bookingCount, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Journal snapshot failed: {}", e.getMessage(), e);
+        } finally {
+            writeLock.lock();
+            snapshotPending = false;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Loads snapshot.bin if present and intact.
+     * @return Journal generation to replay from (1 without a snapshot)
+     */
+    private int loadSnapshot() throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        if (!Files.exists(file)) return 1;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+             DataInputStream in = new DataInputStream(checked)) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != SNAPSHOT_MAGIC || version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unrecognized snapshot " + file);
+            }
+            int snapshotGeneration = in.readInt();
+            int[] seats = new int[in.readInt()];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = in.readInt();
+            }
+            List<Mutation> restored = new ArrayList<>();
+            int bookingCount = 0;
+            while (in.readBoolean()) {
+                int id = in.readInt();
+                String userName = in.readUTF();
+                int seatsBooked = in.readInt();
+                long seconds = in.readLong();
+                int nanos = in.readInt();
+                byte status = in.readByte();
+                int fromStop = version >= 2 ? in.readUnsignedByte() : 0;
+                int toStop = version >= 2 ? in.readUnsignedByte() : 0;
+                LocalDateTime time = seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                restored.add(Mutation.insert(id, userName, seatsBooked, time,
+                        status > 0 && status < STATUSES.length ? STATUSES[status] : null,
+                        toStop == 0 ? null : new Leg(fromStop, toStop)));
+                bookingCount++;
+            }
+            int legBookings = version >= 2 ? in.readInt() : 0;
+            for (int b = 0; b < legBookings; b++) {
+                int id = in.readInt();
+                int[] held = new int[in.readInt()];
+                for (int i = 0; i < held.length; i++) {
+                    held[i] = in.readInt();
+                }
+                restored.add(Mutation.hold(id, held));
+            }
+            int requests = version >= 3 ? in.readInt() : 0;
+            for (int r = 0; r < requests; r++) {
+                String requestId = in.readUTF();
+                restored.add(Mutation.request(in.readInt(), requestId));
+            }
+            while (version >= 4 && in.readBoolean()) {
+                int id = in.readInt();
+                int bookingId = in.readInt();
+                byte type = in.readByte();
+                int notified = in.readInt();
+                long seconds = in.readLong();
+                int nanos = in.readInt();
+                LocalDateTime time = seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                restored.add(Mutation.notify(id, bookingId,
+                        type > 0 && type < NOTIFICATION_TYPES.length ? NOTIFICATION_TYPES[type] : null, notified, time));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch in " + file);
+            }
+            restoreSeats(seats);
+            restored.forEach(this::apply);
+            logger.info("Loaded snapshot generation {} with {} bookings.", snapshotGeneration, bookingCount);
+            return snapshotGeneration;
+        }
+    }
+
+    private void openJournal(int journalGeneration, boolean truncate) throws IOException {
+        if (channel != null) {
+            if (!syncMode.equals("none")) {
+                forceChunk();
+            }
+            channel.close();
+        }
+        Path file = dir.resolve("journal-" + journalGeneration + ".log");
+        channel = truncate
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        chunk = null;
+        generation = journalGeneration;
+    }
+
+    private TreeMap<Integer, Path> listJournals() throws IOException {
+        TreeMap<Integer, Path> journals = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    journals.put(Integer.parseInt(name.substring(8, name.length() - 4)), file);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected journal file {}", file);
+                }
+            }
+        }
+        return journals;
+    }
+
+    private static byte code(String[] values, String value) {
+        if (value == null) return 0;
+        for (byte i = 1; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        throw new IllegalArgumentException("Invalid status or notification type: " + value);
+    }
+}
@@ -0,0 +1,24 @@
+package com.railway.dao;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Thrown when seats chosen for a booking are already taken in the store, typically by
+ * another application instance sharing the database. Nothing was written.
+ */
+public class SeatConflictException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] seatIds;
+
+    public SeatConflictException(int[] seatIds) {
+        super("Seats already taken: " + Arrays.toString(seatIds));
+        this.seatIds = seatIds.clone();
+    }
+
+    /**
+     * @return Seats that were taken
+     */
+    public int[] getSeatIds() { return seatIds.clone(); }
+}
@@ -0,0 +1,222 @@
+package com.railway.dao;
+
+import com.railway.metrics.BookingMetrics;
+import com.railway.metrics.Timer;
+import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.Notification;
+import com.railway.model.SeatRelease;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BookingStore decorator that records call counts and latency per method as
+ * store.&lt;method&gt; timers, failed calls included. BookingStoreFactory wraps the
+ * configured store in it when metrics are enabled.
+ */
+class TimedBookingStore implements BookingStore {
+    private final BookingStore delegate;
+    private final Timer addBooking = BookingMetrics.timer("store.addBooking");
+    private final Timer addConfirmedBooking = BookingMetrics.timer("store.addConfirmedBooking");
+    private final Timer confirmWaitlistedBooking = BookingMetrics.timer("store.confirmWaitlistedBooking");
+    private final Timer addBookings = BookingMetrics.timer("store.addBookings");
+    private final Timer cancelSeats = BookingMetrics.timer("store.cancelSeats");
+    private final Timer getBookedSeats = BookingMetrics.timer("store.getBookedSeats");
+    private final Timer getLegSeats = BookingMetrics.timer("store.getLegSeats");
+    private final Timer getHeldLegs = BookingMetrics.timer("store.getHeldLegs");
+    private final Timer getUserSeats = BookingMetrics.timer("store.getUserSeats");
+    private final Timer findBookings = BookingMetrics.timer("store.findBookings");
+    private final Timer streamBookings = BookingMetrics.timer("store.streamBookings");
+    private final Timer getConfirmedBookings = BookingMetrics.timer("store.getConfirmedBookings");
+    private final Timer getWaitlistedBookings = BookingMetrics.timer("store.getWaitlistedBookings");
+    private final Timer countBookingsAfter = BookingMetrics.timer("store.countBookingsAfter");
+    private final Timer loadBookingStats = BookingMetrics.timer("store.loadBookingStats");
+    private final Timer getPendingNotifications = BookingMetrics.timer("store.getPendingNotifications");
+    private final Timer completeNotifications = BookingMetrics.timer("store.completeNotifications");
+
+    TimedBookingStore(BookingStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void initialize(int totalSeats) {
+        delegate.initialize(totalSeats);
+    }
+
+    @Override
+    public int addBooking(Booking booking) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.addBooking(booking);
+        } finally {
+            addBooking.stop(start);
+        }
+    }
+
+    @Override
+    public int addConfirmedBooking(Booking booking, int[] seatIds) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.addConfirmedBooking(booking, seatIds);
+        } finally {
+            addConfirmedBooking.stop(start);
+        }
+    }
+
+    @Override
+    public boolean confirmWaitlistedBooking(int bookingId, int[] seatIds) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.confirmWaitlistedBooking(bookingId, seatIds);
+        } finally {
+            confirmWaitlistedBooking.stop(start);
+        }
+    }
+
+    @Override
+    public int[] addBookings(List<Booking> bookings, List<int[]> seatIds) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.addBookings(bookings, seatIds);
+        } finally {
+            addBookings.stop(start);
+        }
+    }
+
+    @Override
+    public void cancelSeats(List<SeatRelease> releases) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            delegate.cancelSeats(releases);
+        } finally {
+            cancelSeats.stop(start);
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> getBookedSeats() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getBookedSeats();
+        } finally {
+            getBookedSeats.stop(start);
+        }
+    }
+
+    @Override
+    public Map<Integer, int[]> getLegSeats() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getLegSeats();
+        } finally {
+            getLegSeats.stop(start);
+        }
+    }
+
+    @Override
+    public Map<Integer, List<Leg>> getHeldLegs() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getHeldLegs();
+        } finally {
+            getHeldLegs.stop(start);
+        }
+    }
+    @Override
+    public Map<Integer, int[]> getUserSeats(String userName) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getUserSeats(userName);
+        } finally {
+            getUserSeats.stop(start);
+        }
+    }
+
+
+    @Override
+    public BookingPage findBookings(BookingQuery query, int cursor, int limit) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.findBookings(query, cursor, limit);
+        } finally {
+            findBookings.stop(start);
+        }
+    }
+
+    @Override
+    public void streamBookings(BookingQuery query, int cursor, int fetchSize, BookingRowHandler handler)
+            throws SQLException, IOException {
+        long start = BookingMetrics.start();
+        try {
+            delegate.streamBookings(query, cursor, fetchSize, handler);
+        } finally {
+            streamBookings.stop(start);
+        }
+    }
+
+    @Override
+    public List<Booking> getConfirmedBookings() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getConfirmedBookings();
+        } finally {
+            getConfirmedBookings.stop(start);
+        }
+    }
+
+    @Override
+    public List<Booking> getWaitlistedBookings() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getWaitlistedBookings();
+        } finally {
+            getWaitlistedBookings.stop(start);
+        }
+    }
+
+    @Override
+    public long countBookingsAfter(int afterId) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.countBookingsAfter(afterId);
+        } finally {
+            countBookingsAfter.stop(start);
+        }
+    }
+
+    @Override
+    public BookingStats loadBookingStats() throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.loadBookingStats();
+        } finally {
+            loadBookingStats.stop(start);
+        }
+    }
+
+    @Override
+    public List<Notification> getPendingNotifications(long afterId, int limit) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            return delegate.getPendingNotifications(afterId, limit);
+        } finally {
+            getPendingNotifications.stop(start);
+        }
+    }
+
+    @Override
+    public void completeNotifications(long[] ids, boolean delivered) throws SQLException {
+        long start = BookingMetrics.start();
+        try {
+            delegate.completeNotifications(ids, delivered);
+        } finally {
+            completeNotifications.stop(start);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.railway.export;
+
+import com.railway.config.AppConfig;
+import com.railway.dao.BookingStore;
+import com.railway.dao.BookingStoreFactory;
+import com.railway.model.Booking;
+import com.railway.model.BookingQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams booking history to CSV.
+ * Rows are streamed from the booking store (a forward-only cursor on MySQL) and
+ * encoded straight into a large byte buffer that is drained to a file channel
+ * (optionally through gzip), so memory use stays flat regardless of history size.
+ * Incremental exports append only bookings with an ID above the last exported one,
+ * which is kept in a ".state" file next to the export.
+ */
+public class BookingCsvExporter {
+    private static final Logger logger = LoggerFactory.getLogger(BookingCsvExporter.class);
+    private static final String HEADER = "ID,User,Seats,Time,Status\n";
+    private static final String LAST_ID_KEY = "last.exported.id";
+
+    private final int fetchSize = AppConfig.getInt("export.fetch.size", 0);
+    private final int bufferSize = AppConfig.getInt("export.buffer.bytes", 1 << 20);
+    private final int progressInterval = AppConfig.getInt("export.progress.rows", 10000);
+
+    /**
+     * Receives export progress.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param rowsWritten Rows written so far
+         * @param totalRows Rows expected in this export
+         */
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    /**
+     * Exports booking history.
+     * @param file Target CSV file
+     * @param gzip true to gzip the output; an incremental export appends a new gzip member
+     * @param incremental true to append only bookings added since the last export
+     * @param listener Progress listener (optional)
+     * @return Number of rows written
+     * @throws IOException on file error
+     * @throws SQLException on database error
+     */
+    public long export(Path file, boolean gzip, boolean incremental, ProgressListener listener)
+            throws IOException, SQLException {
+        Path stateFile = file.resolveSibling(file.getFileName() + ".state");
+        boolean append = incremental && Files.exists(file) && Files.exists(stateFile);
+        int afterId = append ? readLastId(stateFile) : 0;
+        BookingStore store = BookingStoreFactory.getStore();
+        long totalRows = store.countBookingsAfter(afterId);
+        long start = System.nanoTime();
+
+        StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+             CsvSink sink = new CsvSink(gzip
+                     ? new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024)
+                     : Channels.newOutputStream(channel), bufferSize)) {
+            if (!append) {
+                sink.writeAscii(HEADER);
+            }
+            int[] lastId = {afterId};
+            long[] rows = {0};
+            store.streamBookings(BookingQuery.ALL, afterId, fetchSize, booking -> {
+                sink.writeRow(booking);
+                lastId[0] = booking.getId();
+                if (++rows[0] % progressInterval == 0 && listener != null) {
+                    listener.onProgress(rows[0], Math.max(totalRows, rows[0]));
+                }
+            });
+            sink.finish();
+            channel.force(false);
+            writeLastId(stateFile, lastId[0]);
+            if (listener != null) {
+                listener.onProgress(rows[0], Math.max(totalRows, rows[0]));
+            }
+            logger.info("Exported {} bookings to {} in {} ms (incremental={}, gzip={}).", rows[0], file,
+                    (System.nanoTime() - start) / 1_000_000, append, gzip);
+            return rows[0];
+        }
+    }
+
+    private int readLastId(Path stateFile) throws IOException {
+        Properties state = new Properties();
+        try (InputStream input = Files.newInputStream(stateFile)) {
+            state.load(input);
+        }
+        try {
+            return Integer.parseInt(state.getProperty(LAST_ID_KEY, "0"));
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt export state in " + stateFile, e);
+        }
+    }
+
+    private void writeLastId(Path stateFile, int lastId) throws IOException {
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.writeString(temp, LAST_ID_KEY + "=" + lastId + "\n", StandardCharsets.ISO_8859_1);
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes CSV rows into a reusable byte buffer without per-row String formatting.
+     */
+    private static final class CsvSink implements AutoCloseable {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int position;
+        private boolean closed;
+
+        CsvSink(OutputStream out, int bufferSize) {
+            this.out = out;
+            this.buffer = new byte[Math.max(bufferSize, 4096)];
+        }
+
+        void writeRow(Booking booking) throws IOException {
+            writeInt(booking.getId());
+            writeByte(',');
+            writeText(booking.getUserName());
+            writeByte(',');
+            writeInt(booking.getSeatsBooked());
+            writeByte(',');
+            writeAscii(String.valueOf(booking.getBookingTime()));
+            writeByte(',');
+            writeAscii(booking.getStatus());
+            writeByte('\n');
+        }
+
+        void writeAscii(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                writeByte(value.charAt(i));
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            boolean plain = true;
+            for (int i = 0; i < value.length() && plain; i++) {
+                char c = value.charAt(i);
+                plain = c >= 0x20 && c < 0x7f && c != ',' && c != '"';
+            }
+            if (plain) {
+                writeAscii(value);
+                return;
+            }
+            byte[] bytes = ('"' + value.replace("\"", "\"\"") + '"').getBytes(StandardCharsets.UTF_8);
+            for (byte b : bytes) {
+                writeByte(b);
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            writeAscii(Integer.toString(value));
+        }
+
+        private void writeByte(int b) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        /**
+         * Writes buffered bytes and the gzip trailer without closing the channel.
+         */
+        void finish() throws IOException {
+            drain();
+            if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A booking persisted by the store; the duration is the store call.
+ */
+@Name("com.railway.BookingCommit")
+@Label("Booking Commit")
+@Category({"Railway", "Booking"})
+@Description("A booking written to the store")
+@StackTrace(false)
+public class BookingCommitEvent extends jdk.jfr.Event {
+    @Label("Booking ID")
+    public int bookingId;
+
+    @Label("User")
+    public String userName;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Leg")
+    public String leg;
+
+    @Label("Since Request")
+    @Description("Time from the start of the request to the commit")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sinceRequest;
+}
@@ -0,0 +1,54 @@
+package com.railway.metrics;
+
+import com.railway.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of timers. Names are dotted: op.* for service operations,
+ * lock.* for lock wait and hold times, store.* for BookingStore calls.
+ * With metrics.enabled=false, start() returns 0 and timers record nothing, so
+ * instrumented code does not even read the clock.
+ */
+public final class BookingMetrics {
+    /** Read once; instrumented code checks it on every call. */
+    public static final boolean ENABLED = AppConfig.getBoolean("metrics.enabled", true);
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private BookingMetrics() {
+    }
+
+    /**
+     * Gets or creates a timer. Callers keep the result in a field rather than looking it
+     * up on every call.
+     * @param name Metric name
+     * @return Shared timer
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * @return Start time for Timer.stop, or 0 when metrics are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return Snapshots of every timer that recorded something, ordered by name
+     */
+    public static List<TimerSnapshot> snapshot() {
+        List<TimerSnapshot> snapshots = new ArrayList<>();
+        for (Timer timer : timers.values()) {
+            TimerSnapshot snapshot = timer.snapshot();
+            if (snapshot.getCount() > 0) snapshots.add(snapshot);
+        }
+        snapshots.sort(Comparator.comparing(TimerSnapshot::getName));
+        return snapshots;
+    }
+}
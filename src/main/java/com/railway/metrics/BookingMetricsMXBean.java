@@ -0,0 +1,49 @@
+package com.railway.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of booking metrics, registered as com.railway:type=BookingMetrics.
+ * Everything is computed when read, so an idle MBean costs nothing.
+ */
+public interface BookingMetricsMXBean {
+    /**
+     * @return Latency summaries of operations, locks and store calls that recorded anything
+     */
+    List<TimerSnapshot> getTimers();
+
+    /**
+     * @return Seats free on the whole route
+     */
+    int getFreeSeats();
+
+    /**
+     * @return Waitlisted bookings
+     */
+    int getWaitlistLength();
+
+    /**
+     * @return Bookings queued for the group-commit writer
+     */
+    int getCommitQueueDepth();
+
+    /**
+     * @return Database connections currently borrowed from the pool
+     */
+    int getDbActiveConnections();
+
+    /**
+     * @return Open database connections idle in the pool
+     */
+    int getDbIdleConnections();
+
+    /**
+     * @return Threads waiting for a database connection
+     */
+    int getDbWaitingThreads();
+
+    /**
+     * @return The one-line summary also written to the log
+     */
+    String getSummary();
+}
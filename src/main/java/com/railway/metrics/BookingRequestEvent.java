@@ -0,0 +1,43 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One booking request from entry to result, including retries after seat conflicts.
+ */
+@Name("com.railway.BookingRequest")
+@Label("Booking Request")
+@Category({"Railway", "Booking"})
+@Description("A booking request from entry to result")
+@StackTrace(false)
+public class BookingRequestEvent extends jdk.jfr.Event {
+    @Label("User")
+    public String userName;
+
+    @Label("Seats Requested")
+    public int seats;
+
+    @Label("Leg")
+    public String leg;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Booking ID")
+    @Description("0 if no booking was created")
+    public int bookingId;
+
+    @Label("Status")
+    @Description("CONFIRMED, WAITLISTED, DUPLICATE or FAILED")
+    public String status;
+
+    @Label("Attempts")
+    public int attempts;
+
+    /** System.nanoTime() at the start of the request; transient, so not recorded. */
+    public transient long startNanos = System.nanoTime();
+}
@@ -0,0 +1,34 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A cancellation request, including the user lock, the store call and seat release.
+ */
+@Name("com.railway.Cancellation")
+@Label("Cancellation")
+@Category({"Railway", "Booking"})
+@Description("Seats cancelled from a user's bookings")
+@StackTrace(false)
+public class CancellationEvent extends jdk.jfr.Event {
+    @Label("User")
+    public String userName;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Bookings")
+    @Description("Bookings the seats were taken from")
+    public int bookings;
+
+    @Label("Bookings Cancelled")
+    @Description("Bookings left without seats")
+    public int cancelled;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,31 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One BookingDAO database call: connection borrow, statements and, for writes, commit
+ * or rollback. Reads such as outbox polls and history pages are recorded too.
+ */
+@Name("com.railway.DatabaseCall")
+@Label("Database Call")
+@Category({"Railway", "Database"})
+@Description("A BookingDAO query or transaction against MySQL")
+@StackTrace(false)
+public class DatabaseCallEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Booking ID")
+    @Description("0 if not known")
+    public int bookingId;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Success")
+    public boolean success;
+}
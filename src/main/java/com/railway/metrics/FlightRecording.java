@@ -0,0 +1,58 @@
+package com.railway.metrics;
+
+import com.railway.config.AppConfig;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts a continuous JDK Flight Recorder recording with the bundled booking.jfc
+ * profile when jfr.enabled=true. The recording keeps the last jfr.max.age.ms (and at most
+ * jfr.max.size.mb) and is written to jfr.file on exit; jcmd &lt;pid&gt; JFR.dump takes a
+ * snapshot at any time.
+ */
+public final class FlightRecording {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final String PROFILE = "/booking.jfc";
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts the recording if configured. Failures are logged and otherwise ignored.
+     */
+    public static void startIfConfigured() {
+        if (!AppConfig.getBoolean("jfr.enabled", false)) return;
+        try (InputStream input = FlightRecording.class.getResourceAsStream(PROFILE)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + PROFILE);
+            }
+            Configuration configuration;
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                configuration = Configuration.create(reader);
+            }
+            Recording recording = new Recording(configuration);
+            recording.setName("railway-booking");
+            recording.setToDisk(true);
+            recording.setDumpOnExit(true);
+            recording.setMaxAge(Duration.ofMillis(AppConfig.getLong("jfr.max.age.ms", 3600000)));
+            recording.setMaxSize(AppConfig.getLong("jfr.max.size.mb", 256) * 1024 * 1024);
+            Path file = Path.of(AppConfig.getString("jfr.file", "booking.jfr"));
+            recording.setDestination(file);
+            recording.start();
+            logger.info("Flight recording started with {}, written to {} on exit.", configuration.getLabel(), file.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.warn("Could not start flight recording: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.railway.metrics;
+
+import com.railway.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Publishes booking metrics through JMX and a periodic summary log line
+ * (metrics.log.interval.ms, 0 disables it). Gauges are read from the booking system
+ * only when the MBean or the log asks for them.
+ */
+public class MetricsPublisher implements BookingMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsPublisher.class);
+    private static final String OBJECT_NAME = "com.railway:type=BookingMetrics";
+    private final IntSupplier freeSeats;
+    private final IntSupplier waitlistLength;
+    private final IntSupplier commitQueueDepth;
+    private final IntSupplier dbActive;
+    private final IntSupplier dbIdle;
+    private final IntSupplier dbWaiting;
+    private static MetricsPublisher registered;
+    private ScheduledExecutorService reporter;
+
+    /**
+     * @param freeSeats Supplies the number of free seats
+     * @param waitlistLength Supplies the number of waitlisted bookings
+     * @param commitQueueDepth Supplies the group-commit queue depth
+     * @param dbActive Supplies the number of borrowed database connections
+     * @param dbIdle Supplies the number of idle pooled database connections
+     * @param dbWaiting Supplies the number of threads waiting for a database connection
+     */
+    public MetricsPublisher(IntSupplier freeSeats, IntSupplier waitlistLength, IntSupplier commitQueueDepth,
+                            IntSupplier dbActive, IntSupplier dbIdle, IntSupplier dbWaiting) {
+        this.freeSeats = freeSeats;
+        this.waitlistLength = waitlistLength;
+        this.commitQueueDepth = commitQueueDepth;
+        this.dbActive = dbActive;
+        this.dbIdle = dbIdle;
+        this.dbWaiting = dbWaiting;
+    }
+
+    /**
+     * Registers the MBean, replacing one left by an earlier booking system in this JVM,
+     * and starts the summary log.
+     */
+    public void start() {
+        if (!BookingMetrics.ENABLED) return;
+        synchronized (MetricsPublisher.class) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                try {
+                    server.registerMBean(this, name);
+                } catch (InstanceAlreadyExistsException e) {
+                    server.unregisterMBean(name);
+                    server.registerMBean(this, name);
+                }
+                registered = this;
+            } catch (JMException e) {
+                logger.warn("Could not register metrics MBean: {}", e.getMessage());
+            }
+        }
+        long interval = AppConfig.getLong("metrics.log.interval.ms", 60000);
+        if (interval > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(() -> logger.info("Metrics: {}", getSummary()), interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the summary log and unregisters the MBean.
+     */
+    public void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        synchronized (MetricsPublisher.class) {
+            if (registered != this) return;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                logger.debug("Metrics MBean already unregistered: {}", e.getMessage());
+            }
+            registered = null;
+        }
+    }
+
+    @Override
+    public List<TimerSnapshot> getTimers() {
+        return BookingMetrics.snapshot();
+    }
+
+    @Override
+    public int getFreeSeats() {
+        return freeSeats.getAsInt();
+    }
+
+    @Override
+    public int getWaitlistLength() {
+        return waitlistLength.getAsInt();
+    }
+
+    @Override
+    public int getCommitQueueDepth() {
+        return commitQueueDepth.getAsInt();
+    }
+
+    @Override
+    public int getDbActiveConnections() {
+        return dbActive.getAsInt();
+    }
+
+    @Override
+    public int getDbIdleConnections() {
+        return dbIdle.getAsInt();
+    }
+
+    @Override
+    public int getDbWaitingThreads() {
+        return dbWaiting.getAsInt();
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("free=").append(getFreeSeats())
+                .append(" waitlist=").append(getWaitlistLength())
+                .append(" queue=").append(getCommitQueueDepth())
+                .append(" db.active=").append(getDbActiveConnections())
+                .append(" db.idle=").append(getDbIdleConnections())
+                .append(" db.waiting=").append(getDbWaitingThreads());
+        for (TimerSnapshot timer : getTimers()) {
+            sb.append("; ").append(timer);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reservation of seats in the in-memory inventory, before anything is persisted.
+ */
+@Name("com.railway.SeatAllocation")
+@Label("Seat Allocation")
+@Category({"Railway", "Booking"})
+@Description("Seats reserved in memory for a booking request")
+@StackTrace(false)
+public class SeatAllocationEvent extends jdk.jfr.Event {
+    @Label("User")
+    public String userName;
+
+    @Label("Seats Requested")
+    public int seats;
+
+    @Label("Seats Allocated")
+    @Description("0 if the request is waitlisted or rejected")
+    public int allocated;
+
+    @Label("Selected")
+    @Description("The user picked the seats")
+    public boolean selected;
+
+    @Label("Leg")
+    public String leg;
+}
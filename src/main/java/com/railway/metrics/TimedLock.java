@@ -0,0 +1,52 @@
+package com.railway.metrics;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ReentrantLock that records how long lock() waited and how long the lock was held.
+ * An uncontended acquisition is a tryLock and records a zero wait without reading the
+ * clock; hold time covers the outermost lock()/unlock() pair. Other acquisition methods
+ * are not timed.
+ */
+public class TimedLock extends ReentrantLock {
+    private static final long serialVersionUID = 1L;
+
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+    private long acquiredAt;
+
+    /**
+     * @param name Lock name; timers are lock.&lt;name&gt;.wait and lock.&lt;name&gt;.hold
+     */
+    public TimedLock(String name) {
+        this.waitTimer = BookingMetrics.timer("lock." + name + ".wait");
+        this.holdTimer = BookingMetrics.timer("lock." + name + ".hold");
+    }
+
+    @Override
+    public void lock() {
+        if (!BookingMetrics.ENABLED) {
+            super.lock();
+            return;
+        }
+        if (tryLock()) {
+            waitTimer.record(0);
+        } else {
+            long start = System.nanoTime();
+            super.lock();
+            waitTimer.record(System.nanoTime() - start);
+        }
+        if (getHoldCount() == 1) {
+            acquiredAt = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void unlock() {
+        if (acquiredAt != 0 && getHoldCount() == 1 && isHeldByCurrentThread()) {
+            holdTimer.record(System.nanoTime() - acquiredAt);
+            acquiredAt = 0;
+        }
+        super.unlock();
+    }
+}
@@ -0,0 +1,109 @@
+package com.railway.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Low-overhead latency recorder for hot paths.
+ * Recording adds to LongAdder cells, so threads do not contend on a shared counter;
+ * counts, percentiles and the maximum are only computed when someone reads them.
+ * Buckets are log-linear over nanoseconds, four per power of two, so percentiles are
+ * within about 20% of the recorded value.
+ */
+public class Timer {
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[EXACT + (62 - SUB_BITS) * SUB_BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs an empty timer. Use BookingMetrics.timer to get a shared, named one.
+     * @param name Metric name
+     */
+    public Timer(String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one duration.
+     * @param nanos Duration in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[indexOf(value)].increment();
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Records the time since a start taken with BookingMetrics.start().
+     * Does nothing when metrics are disabled.
+     * @param startNanos Start time, or 0 when metrics are disabled
+     */
+    public void stop(long startNanos) {
+        if (startNanos != 0) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Computes the current count, mean, percentiles and maximum. Concurrent recordings
+     * may be partly included.
+     * @return Snapshot in microseconds
+     */
+    public TimerSnapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        long n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+        long max = maxNanos.get();
+        double meanNanos = n == 0 ? 0 : (double) totalNanos.sum() / n;
+        return new TimerSnapshot(name, n, meanNanos / 1000.0, toMicros(percentile(counts, n, 50, max)),
+                toMicros(percentile(counts, n, 99, max)), toMicros(percentile(counts, n, 99.9, max)), toMicros(max));
+    }
+
+    private static long percentile(long[] counts, long n, double percentile, long max) {
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < EXACT) return index;
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long sub = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
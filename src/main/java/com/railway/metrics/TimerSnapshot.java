@@ -0,0 +1,48 @@
+package com.railway.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time summary of a Timer, in microseconds. Exposed over JMX as composite data.
+ */
+public class TimerSnapshot {
+    private final String name;
+    private final long count;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    @ConstructorProperties({"name", "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public TimerSnapshot(String name, long count, double meanMicros, double p50Micros, double p99Micros,
+                         double p999Micros, double maxMicros) {
+        this.name = name;
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getName() { return name; }
+    public long getCount() { return count; }
+    public double getMeanMicros() { return meanMicros; }
+    public double getP50Micros() { return p50Micros; }
+    public double getP99Micros() { return p99Micros; }
+    public double getP999Micros() { return p999Micros; }
+    public double getMaxMicros() { return maxMicros; }
+
+    @Override
+    public String toString() {
+        return String.format("%s n=%d p50=%s p99=%s max=%s", name, count, format(p50Micros), format(p99Micros),
+                format(maxMicros));
+    }
+
+    private static String format(double micros) {
+        if (micros < 1000) return String.format("%.1fus", micros);
+        if (micros < 1_000_000) return String.format("%.2fms", micros / 1000);
+        return String.format("%.2fs", micros / 1_000_000);
+    }
+}
@@ -0,0 +1,30 @@
+package com.railway.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An attempt to confirm a waitlisted booking: seat reservation and store call.
+ */
+@Name("com.railway.WaitlistPromotion")
+@Label("Waitlist Promotion")
+@Category({"Railway", "Booking"})
+@Description("A waitlisted booking confirmed with freed seats")
+@StackTrace(false)
+public class WaitlistPromotionEvent extends jdk.jfr.Event {
+    @Label("Booking ID")
+    public int bookingId;
+
+    @Label("User")
+    public String userName;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Status")
+    @Description("CONFIRMED, or WAITLISTED if the promotion did not go through")
+    public String status;
+}
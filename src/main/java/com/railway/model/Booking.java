@@ -9,14 +9,34 @@ public class Booking {
     private final int seatsBooked;
     private final LocalDateTime bookingTime;
     private final String status;
+    private final Leg leg;
+    private final String requestId;
 
 
     public Booking(int id, String userName, int seatsBooked, LocalDateTime bookingTime, String status) {
+        this(id, userName, seatsBooked, bookingTime, status, null);
+    }
+
+    /**
+     * @param leg Part of the route travelled, or null for the full journey
+     */
+    public Booking(int id, String userName, int seatsBooked, LocalDateTime bookingTime, String status, Leg leg) {
+        this(id, userName, seatsBooked, bookingTime, status, leg, null);
+    }
+
+    /**
+     * @param leg Part of the route travelled, or null for the full journey
+     * @param requestId Client request ID that created the booking, or null
+     */
+    public Booking(int id, String userName, int seatsBooked, LocalDateTime bookingTime, String status, Leg leg,
+                   String requestId) {
         this.id = id;
         this.userName = userName;
         this.seatsBooked = seatsBooked;
         this.bookingTime = bookingTime;
         this.status = status;
+        this.leg = leg;
+        this.requestId = requestId;
     }
 
     // Getters and setters
@@ -25,10 +45,12 @@ public class Booking {
     public int getSeatsBooked() { return seatsBooked; }
     public LocalDateTime getBookingTime() { return bookingTime; }
     public String getStatus() { return status; }
+    public Leg getLeg() { return leg; }
+    public String getRequestId() { return requestId; }
 
     @Override
     public String toString() {
-        return String.format("Booking{id=%d, user='%s', seats=%d, time=%s, status='%s'}",
-                id, userName, seatsBooked, bookingTime, status);
+        return String.format("Booking{id=%d, user='%s', seats=%d, time=%s, status='%s'%s}",
+                id, userName, seatsBooked, bookingTime, status, leg != null ? ", leg=" + leg : "");
     }
 }
@@ -0,0 +1,30 @@
+package com.railway.model;
+
+import java.util.List;
+
+/**
+ * One page of a booking history query.
+ */
+public class BookingPage {
+    private final List<Booking> bookings;
+    private final boolean hasMore;
+
+    /**
+     * @param bookings Bookings on this page, in query order
+     * @param hasMore true if more bookings match after this page
+     */
+    public BookingPage(List<Booking> bookings, boolean hasMore) {
+        this.bookings = List.copyOf(bookings);
+        this.hasMore = hasMore;
+    }
+
+    public List<Booking> getBookings() { return bookings; }
+    public boolean hasMore() { return hasMore; }
+
+    /**
+     * @return Cursor for the next page: the last booking ID on this page, or 0 if it is empty
+     */
+    public int getNextCursor() {
+        return bookings.isEmpty() ? 0 : bookings.get(bookings.size() - 1).getId();
+    }
+}
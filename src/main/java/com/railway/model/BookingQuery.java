@@ -0,0 +1,84 @@
+package com.railway.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Filters and order for booking history queries. Every filter is optional (null matches
+ * all). Results are paged by keyset: a page continues after the last booking ID of the
+ * previous one, so deep pages cost the same as the first.
+ */
+public class BookingQuery {
+    public static final BookingQuery ALL = new BookingQuery(null, null, null, null, false);
+    public static final BookingQuery ALL_NEWEST_FIRST = new BookingQuery(null, null, null, null, true);
+
+    private final String userName;
+    private final String status;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final boolean newestFirst;
+
+    /**
+     * @param userName Exact user name, or null
+     * @param status CONFIRMED, WAITLISTED or CANCELLED, or null
+     * @param from Inclusive lower bound on booking time, or null
+     * @param to Exclusive upper bound on booking time, or null
+     * @param newestFirst true to order by descending booking ID
+     */
+    public BookingQuery(String userName, String status, LocalDateTime from, LocalDateTime to, boolean newestFirst) {
+        this.userName = userName;
+        this.status = status;
+        this.from = from;
+        this.to = to;
+        this.newestFirst = newestFirst;
+    }
+
+    /**
+     * Builds a query over whole days, as entered in the history views.
+     * @param userName Exact user name, or null
+     * @param status CONFIRMED, WAITLISTED or CANCELLED, or null
+     * @param fromDay First day included, or null
+     * @param toDay Last day included, or null
+     * @param newestFirst true to order by descending booking ID
+     * @return Query
+     */
+    public static BookingQuery forDays(String userName, String status, LocalDate fromDay, LocalDate toDay,
+                                       boolean newestFirst) {
+        return new BookingQuery(userName, status, fromDay != null ? fromDay.atStartOfDay() : null,
+                toDay != null ? toDay.plusDays(1).atStartOfDay() : null, newestFirst);
+    }
+
+    public String getUserName() { return userName; }
+    public String getStatus() { return status; }
+    public LocalDateTime getFrom() { return from; }
+    public LocalDateTime getTo() { return to; }
+    public boolean isNewestFirst() { return newestFirst; }
+
+    /**
+     * @param booking Booking
+     * @return true if the booking passes every filter
+     */
+    public boolean matches(Booking booking) {
+        if (userName != null && !userName.equals(booking.getUserName())) return false;
+        if (status != null && !status.equals(booking.getStatus())) return false;
+        LocalDateTime time = booking.getBookingTime();
+        if (from != null && (time == null || time.isBefore(from))) return false;
+        return to == null || (time != null && time.isBefore(to));
+    }
+
+    /**
+     * @param cursor Booking ID the page continues after, 0 for the first page
+     * @param bookingId Booking ID
+     * @return true if the booking comes after the cursor in this query's order
+     */
+    public boolean isAfter(int cursor, int bookingId) {
+        if (cursor <= 0) return true;
+        return newestFirst ? bookingId < cursor : bookingId > cursor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BookingQuery{user=%s, status=%s, from=%s, to=%s, %s}",
+                userName, status, from, to, newestFirst ? "newest first" : "oldest first");
+    }
+}
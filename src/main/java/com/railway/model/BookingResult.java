@@ -0,0 +1,65 @@
+package com.railway.model;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a booking request.
+ */
+public class BookingResult {
+    private final boolean success;
+    private final int bookingId;
+    private final String userName;
+    private final int seatsRequested;
+    private final String status;
+    private final int[] seatIds;
+    private final String message;
+
+    private BookingResult(boolean success, int bookingId, String userName, int seatsRequested, String status,
+                          int[] seatIds, String message) {
+        this.success = success;
+        this.bookingId = bookingId;
+        this.userName = userName;
+        this.seatsRequested = seatsRequested;
+        this.status = status;
+        this.seatIds = seatIds != null ? seatIds.clone() : new int[0];
+        this.message = message;
+    }
+
+    /**
+     * Creates the result of a persisted booking.
+     * @param bookingId Generated booking ID
+     * @param userName User name
+     * @param seatsRequested Number of seats
+     * @param status CONFIRMED or WAITLISTED
+     * @param seatIds Assigned seats (empty when waitlisted)
+     * @return Successful result
+     */
+    public static BookingResult booked(int bookingId, String userName, int seatsRequested, String status, int[] seatIds) {
+        return new BookingResult(true, bookingId, userName, seatsRequested, status, seatIds, "Booking " + status.toLowerCase());
+    }
+
+    /**
+     * Creates the result of a request that was not persisted.
+     * @param userName User name
+     * @param seatsRequested Number of seats
+     * @param message Reason
+     * @return Failed result
+     */
+    public static BookingResult failed(String userName, int seatsRequested, String message) {
+        return new BookingResult(false, -1, userName, seatsRequested, null, null, message);
+    }
+
+    public boolean isSuccess() { return success; }
+    public int getBookingId() { return bookingId; }
+    public String getUserName() { return userName; }
+    public int getSeatsRequested() { return seatsRequested; }
+    public String getStatus() { return status; }
+    public int[] getSeatIds() { return seatIds.clone(); }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return String.format("BookingResult{success=%b, id=%d, user='%s', seats=%d, status='%s', seatIds=%s, message='%s'}",
+                success, bookingId, userName, seatsRequested, status, Arrays.toString(seatIds), message);
+    }
+}
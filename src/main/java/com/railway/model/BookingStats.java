@@ -0,0 +1,79 @@
+package com.railway.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of booking counters.
+ * Transitions return a new snapshot, so a reader always sees a consistent set of values.
+ */
+public class BookingStats {
+    public static final BookingStats EMPTY = new BookingStats(0, 0, 0, 0, 0);
+
+    private final long confirmed;
+    private final long waitlisted;
+    private final long cancelled;
+    private final long confirmedSeats;
+    private final long waitlistedSeats;
+
+    public BookingStats(long confirmed, long waitlisted, long cancelled, long confirmedSeats, long waitlistedSeats) {
+        this.confirmed = confirmed;
+        this.waitlisted = waitlisted;
+        this.cancelled = cancelled;
+        this.confirmedSeats = confirmedSeats;
+        this.waitlistedSeats = waitlistedSeats;
+    }
+
+    public long getConfirmed() { return confirmed; }
+    public long getWaitlisted() { return waitlisted; }
+    public long getCancelled() { return cancelled; }
+    public long getConfirmedSeats() { return confirmedSeats; }
+    public long getWaitlistedSeats() { return waitlistedSeats; }
+
+    /**
+     * @param status CONFIRMED or WAITLISTED
+     * @param seats Seats booked
+     * @return Snapshot after a new booking
+     */
+    public BookingStats withBooked(String status, int seats) {
+        return "CONFIRMED".equals(status)
+                ? new BookingStats(confirmed + 1, waitlisted, cancelled, confirmedSeats + seats, waitlistedSeats)
+                : new BookingStats(confirmed, waitlisted + 1, cancelled, confirmedSeats, waitlistedSeats + seats);
+    }
+
+    /**
+     * @param seats Seats of the promoted booking
+     * @return Snapshot after a waitlisted booking is confirmed
+     */
+    public BookingStats withPromoted(int seats) {
+        return new BookingStats(confirmed + 1, waitlisted - 1, cancelled, confirmedSeats + seats, waitlistedSeats - seats);
+    }
+
+    /**
+     * @param seatsReleased Seats given back
+     * @param fullCancellation true if the booking was cancelled entirely
+     * @return Snapshot after a cancellation
+     */
+    public BookingStats withReleased(int seatsReleased, boolean fullCancellation) {
+        return fullCancellation
+                ? new BookingStats(confirmed - 1, waitlisted, cancelled + 1, confirmedSeats - seatsReleased, waitlistedSeats)
+                : new BookingStats(confirmed, waitlisted, cancelled, confirmedSeats - seatsReleased, waitlistedSeats);
+    }
+
+    /**
+     * @return Map of status to booking count
+     */
+    public Map<String, Integer> toStatusCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("CONFIRMED", (int) confirmed);
+        counts.put("WAITLISTED", (int) waitlisted);
+        counts.put("CANCELLED", (int) cancelled);
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BookingStats{confirmed=%d, waitlisted=%d, cancelled=%d, confirmedSeats=%d, waitlistedSeats=%d}",
+                confirmed, waitlisted, cancelled, confirmedSeats, waitlistedSeats);
+    }
+}
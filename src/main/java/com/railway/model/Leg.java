@@ -0,0 +1,48 @@
+package com.railway.model;
+
+/**
+ * Part of the route a booking travels, from one stop to a later one.
+ * Stops are indexes into the configured station list; segment i runs from stop i to
+ * stop i + 1, so a leg covers segments [fromStop, toStop). A null leg on a booking
+ * means the full journey.
+ */
+public class Leg {
+    /** Longest supported route; segment masks fit in one long. */
+    public static final int MAX_STOPS = 64;
+
+    private final int fromStop;
+    private final int toStop;
+
+    public Leg(int fromStop, int toStop) {
+        if (fromStop < 0 || toStop <= fromStop || toStop >= MAX_STOPS) {
+            throw new IllegalArgumentException("Invalid leg: " + fromStop + " to " + toStop);
+        }
+        this.fromStop = fromStop;
+        this.toStop = toStop;
+    }
+
+    public int getFromStop() { return fromStop; }
+    public int getToStop() { return toStop; }
+
+    /**
+     * @return Bit i set for every segment i the leg occupies
+     */
+    public long segmentMask() {
+        return (-1L >>> (64 - toStop)) & (-1L << fromStop);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Leg other && other.fromStop == fromStop && other.toStop == toStop;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * fromStop + toStop;
+    }
+
+    @Override
+    public String toString() {
+        return fromStop + "-" + toStop;
+    }
+}
@@ -0,0 +1,61 @@
+package com.railway.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message to a user about one of their bookings, waiting in the store's outbox.
+ * Stores create notifications in the same transaction as the booking change they
+ * describe; NotificationDispatcher delivers them later.
+ */
+public class Notification {
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String WAITLISTED = "WAITLISTED";
+    public static final String PROMOTED = "PROMOTED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private final long id;
+    private final int bookingId;
+    private final String userName;
+    private final String type;
+    private final int seats;
+    private final LocalDateTime createdAt;
+
+    /**
+     * @param type CONFIRMED, WAITLISTED, PROMOTED (waitlist booking confirmed) or CANCELLED
+     * @param seats Seats booked, or seats released for CANCELLED
+     */
+    public Notification(long id, int bookingId, String userName, String type, int seats, LocalDateTime createdAt) {
+        this.id = id;
+        this.bookingId = bookingId;
+        this.userName = userName;
+        this.type = type;
+        this.seats = seats;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() { return id; }
+    public int getBookingId() { return bookingId; }
+    public String getUserName() { return userName; }
+    public String getType() { return type; }
+    public int getSeats() { return seats; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    /**
+     * @return Message text for the user
+     */
+    public String getMessage() {
+        return switch (type) {
+            case CONFIRMED -> "Booking " + bookingId + " confirmed for " + seats + " seats";
+            case WAITLISTED -> "Booking " + bookingId + " waitlisted for " + seats + " seats";
+            case PROMOTED -> "Waitlist booking " + bookingId + " confirmed for " + seats + " seats";
+            case CANCELLED -> seats + " seats of booking " + bookingId + " cancelled";
+            default -> "Booking " + bookingId + ": " + type;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Notification{id=%d, bookingId=%d, user='%s', type=%s, seats=%d}",
+                id, bookingId, userName, type, seats);
+    }
+}
@@ -0,0 +1,43 @@
+package com.railway.model;
+
+import java.util.List;
+
+/**
+ * Immutable view of the booking system for readers: seat map, recent bookings and
+ * counters as of one publication. Every part is immutable, so a snapshot can be shared
+ * freely; a newer one is published after further changes.
+ */
+public class ReadSnapshot {
+    private final long version;
+    private final long seatVersion;
+    private final List<String> seatMap;
+    private final List<Booking> recentBookings;
+    private final BookingStats stats;
+    private final int freeSeats;
+    private final int waitlistLength;
+
+    /**
+     * @param version Publication number, increasing by one per snapshot
+     * @param seatVersion Seat change version the seat map reflects at least
+     * @param seatMap "Available" or "Booked" per seat, index 0 for seat 1
+     * @param recentBookings Most recent bookings in ID order
+     */
+    public ReadSnapshot(long version, long seatVersion, List<String> seatMap, List<Booking> recentBookings,
+                        BookingStats stats, int freeSeats, int waitlistLength) {
+        this.version = version;
+        this.seatVersion = seatVersion;
+        this.seatMap = List.copyOf(seatMap);
+        this.recentBookings = List.copyOf(recentBookings);
+        this.stats = stats;
+        this.freeSeats = freeSeats;
+        this.waitlistLength = waitlistLength;
+    }
+
+    public long getVersion() { return version; }
+    public long getSeatVersion() { return seatVersion; }
+    public List<String> getSeatMap() { return seatMap; }
+    public List<Booking> getRecentBookings() { return recentBookings; }
+    public BookingStats getStats() { return stats; }
+    public int getFreeSeats() { return freeSeats; }
+    public int getWaitlistLength() { return waitlistLength; }
+}
@@ -0,0 +1,43 @@
+package com.railway.model;
+
+import java.util.Arrays;
+
+/**
+ * Seats to give back from one confirmed booking during a cancellation.
+ */
+public class SeatRelease {
+    private final int bookingId;
+    private final int[] seatIds;
+    private final int remainingSeats;
+    private final Leg leg;
+
+    public SeatRelease(int bookingId, int[] seatIds, int remainingSeats) {
+        this(bookingId, seatIds, remainingSeats, null);
+    }
+
+    /**
+     * @param leg Leg the seats are held for, or null for the full journey
+     */
+    public SeatRelease(int bookingId, int[] seatIds, int remainingSeats, Leg leg) {
+        this.bookingId = bookingId;
+        this.seatIds = seatIds.clone();
+        this.remainingSeats = remainingSeats;
+        this.leg = leg;
+    }
+
+    public int getBookingId() { return bookingId; }
+    public int[] getSeatIds() { return seatIds.clone(); }
+    public int getRemainingSeats() { return remainingSeats; }
+    public Leg getLeg() { return leg; }
+
+    /**
+     * @return true if the booking is cancelled entirely
+     */
+    public boolean isFullCancellation() { return remainingSeats == 0; }
+
+    @Override
+    public String toString() {
+        return String.format("SeatRelease{bookingId=%d, seats=%s, remaining=%d%s}",
+                bookingId, Arrays.toString(seatIds), remainingSeats, leg != null ? ", leg=" + leg : "");
+    }
+}
@@ -0,0 +1,50 @@
+package com.railway.notify;
+
+import com.railway.model.Notification;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sender that appends one tab-separated line per notification to a local file
+ * (ID, creation time, user, type, message). The file is opened on first use, so an
+ * unwritable path shows up as failed, retried deliveries.
+ */
+public class FileNotificationSender implements NotificationSender {
+    private final Path file;
+    private BufferedWriter writer;
+
+    /**
+     * @param file File to append to; created if missing
+     */
+    public FileNotificationSender(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void send(List<Notification> batch) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        for (Notification notification : batch) {
+            writer.write(notification.getId() + "\t" + notification.getCreatedAt() + "\t" + notification.getUserName()
+                    + "\t" + notification.getType() + "\t" + notification.getMessage());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
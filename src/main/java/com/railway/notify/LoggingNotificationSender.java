@@ -0,0 +1,21 @@
+package com.railway.notify;
+
+import com.railway.model.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Sender that only writes each notification to the application log.
+ */
+public class LoggingNotificationSender implements NotificationSender {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public void send(List<Notification> batch) {
+        for (Notification notification : batch) {
+            logger.info("Simulated email to {}: {}", notification.getUserName(), notification.getMessage());
+        }
+    }
+}
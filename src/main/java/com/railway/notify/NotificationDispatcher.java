@@ -0,0 +1,241 @@
+package com.railway.notify;
+
+import com.railway.config.AppConfig;
+import com.railway.dao.BookingStore;
+import com.railway.metrics.BookingMetrics;
+import com.railway.metrics.Timer;
+import com.railway.model.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers outbox notifications from the booking store on a background thread, so
+ * booking latency does not depend on the sender.
+ * Every notify.poll.interval.ms the dispatcher reads pending notifications after the
+ * last one it has seen and hands them to the sender in batches of notify.batch.size,
+ * at most notify.rate.per.second per second (token bucket, 0 for no limit). A failed
+ * batch is retried with exponential backoff from notify.retry.backoff.ms; after
+ * notify.max.attempts the notifications are marked failed in the store. Delivered
+ * notifications leave the outbox.
+ * <p>
+ * Delivery is at least once: a crash between sending and completing a batch sends it
+ * again after restart. Database IDs can become visible out of order, so the dispatcher
+ * rescans the outbox from the start every notify.rescan.interval.ms.
+ * All state below is confined to the dispatcher thread.
+ */
+public class NotificationDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final BookingStore store;
+    private final NotificationSender sender;
+    private final int batchSize;
+    private final double ratePerSecond;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long pollIntervalMs;
+    private final long rescanNanos;
+    private final Timer sendTimer = BookingMetrics.timer("notify.send");
+    private final ScheduledExecutorService executor;
+    private final ArrayDeque<Notification> ready = new ArrayDeque<>();
+    private final PriorityQueue<Retry> retries = new PriorityQueue<>(Comparator.comparingLong(Retry::dueAt));
+    private final Map<Long, Integer> attempts = new HashMap<>();
+    private final Set<Long> queued = new HashSet<>();
+    private long cursor;
+    private long lastRescan = System.nanoTime();
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    private record Retry(Notification notification, long dueAt) {
+    }
+
+    /**
+     * Constructs a dispatcher from the notify.* settings.
+     * @param store Store holding the outbox
+     * @param sender Sender; closed by stop
+     */
+    public NotificationDispatcher(BookingStore store, NotificationSender sender) {
+        this(store, sender,
+                AppConfig.getInt("notify.batch.size", 100),
+                AppConfig.getInt("notify.rate.per.second", 50),
+                AppConfig.getInt("notify.max.attempts", 5),
+                AppConfig.getLong("notify.retry.backoff.ms", 1000),
+                AppConfig.getLong("notify.poll.interval.ms", 100),
+                AppConfig.getLong("notify.rescan.interval.ms", 30000));
+    }
+
+    /**
+     * Constructs a dispatcher.
+     * @param store Store holding the outbox
+     * @param sender Sender; closed by stop
+     * @param batchSize Notifications per send
+     * @param ratePerSecond Maximum notifications per second, 0 for no limit
+     * @param maxAttempts Attempts before a notification is marked failed
+     * @param retryBackoffMs Delay before the first retry; doubles per attempt
+     * @param pollIntervalMs Delay between outbox polls
+     * @param rescanIntervalMs Interval between full outbox rescans
+     */
+    public NotificationDispatcher(BookingStore store, NotificationSender sender, int batchSize, double ratePerSecond,
+                                  int maxAttempts, long retryBackoffMs, long pollIntervalMs, long rescanIntervalMs) {
+        this.store = store;
+        this.sender = sender;
+        this.batchSize = Math.max(1, batchSize);
+        this.ratePerSecond = Math.max(0, ratePerSecond);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(1, retryBackoffMs);
+        this.pollIntervalMs = Math.max(1, pollIntervalMs);
+        this.rescanNanos = Math.max(1, rescanIntervalMs) * 1_000_000;
+        this.tokens = Math.max(1, this.ratePerSecond);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts polling the outbox.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::dispatch, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Notification dispatcher started with {}.", sender.getClass().getSimpleName());
+    }
+
+    /**
+     * Stops after the batch in progress and closes the sender. Undelivered
+     * notifications stay in the outbox for the next start.
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sender.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close notification sender: {}", e.getMessage(), e);
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (!executor.isShutdown()) {
+                long now = System.nanoTime();
+                while (!retries.isEmpty() && retries.peek().dueAt() - now <= 0) {
+                    ready.add(retries.poll().notification());
+                }
+                if (ready.isEmpty() && !fill(now)) return;
+                int permits = takePermits(Math.min(batchSize, ready.size()), now);
+                if (permits == 0) return;
+                List<Notification> batch = new ArrayList<>(permits);
+                for (int i = 0; i < permits; i++) {
+                    batch.add(ready.poll());
+                }
+                deliver(batch);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Notification dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the next pending notifications that are not already queued or retrying.
+     * @return true if any were added
+     */
+    private boolean fill(long now) throws SQLException {
+        if (now - lastRescan >= rescanNanos) {
+            cursor = 0;
+            lastRescan = now;
+        }
+        while (true) {
+            List<Notification> pending = store.getPendingNotifications(cursor, batchSize);
+            for (Notification notification : pending) {
+                cursor = notification.getId();
+                if (queued.add(notification.getId())) {
+                    ready.add(notification);
+                }
+            }
+            if (!ready.isEmpty()) return true;
+            if (pending.size() < batchSize) return false;
+        }
+    }
+
+    private int takePermits(int wanted, long now) {
+        if (ratePerSecond == 0) return wanted;
+        double capacity = Math.max(1, ratePerSecond);
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+        lastRefill = now;
+        int permits = (int) Math.min(wanted, Math.floor(tokens));
+        tokens -= permits;
+        return permits;
+    }
+
+    private void deliver(List<Notification> batch) {
+        long start = BookingMetrics.start();
+        try {
+            sender.send(batch);
+            sendTimer.stop(start);
+            complete(batch, true);
+            logger.debug("Delivered {} notifications.", batch.size());
+        } catch (IOException | RuntimeException e) {
+            sendTimer.stop(start);
+            List<Notification> abandoned = new ArrayList<>();
+            long now = System.nanoTime();
+            for (Notification notification : batch) {
+                int attempt = attempts.merge(notification.getId(), 1, Integer::sum);
+                if (attempt >= maxAttempts) {
+                    abandoned.add(notification);
+                } else {
+                    long delayMs = Math.min(MAX_BACKOFF_MS, retryBackoffMs << Math.min(attempt - 1, 20));
+                    retries.add(new Retry(notification, now + delayMs * 1_000_000));
+                }
+            }
+            logger.warn("Delivery of {} notifications failed, {} will be retried: {}", batch.size(),
+                    batch.size() - abandoned.size(), e.getMessage());
+            if (!abandoned.isEmpty()) {
+                logger.error("Giving up on {} notifications after {} attempts: {}", abandoned.size(), maxAttempts, abandoned);
+                complete(abandoned, false);
+            }
+        }
+    }
+
+    /**
+     * Takes notifications out of the outbox. If the store call fails they stay queued
+     * here, so this process does not send them again; a restart will.
+     */
+    private void complete(List<Notification> notifications, boolean delivered) {
+        long[] ids = new long[notifications.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = notifications.get(i).getId();
+        }
+        try {
+            store.completeNotifications(ids, delivered);
+            for (long id : ids) {
+                queued.remove(id);
+                attempts.remove(id);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to complete {} notifications: {}", ids.length, e.getMessage(), e);
+        }
+    }
+}
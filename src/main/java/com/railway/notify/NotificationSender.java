@@ -0,0 +1,25 @@
+package com.railway.notify;
+
+import com.railway.model.Notification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers notifications to users, e.g. by email or SMS. Called only from the
+ * dispatcher thread, so implementations need not be thread-safe.
+ */
+public interface NotificationSender extends Closeable {
+    /**
+     * Delivers a batch of notifications.
+     * @param batch Notifications, oldest first
+     * @throws IOException if delivery failed; the whole batch is retried later, so
+     *                     receivers may see a notification more than once
+     */
+    void send(List<Notification> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
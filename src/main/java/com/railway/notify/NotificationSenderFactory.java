@@ -0,0 +1,42 @@
+package com.railway.notify;
+
+import com.railway.config.AppConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+
+/**
+ * Creates the NotificationSender selected by notify.sender in db.properties: "log"
+ * (default) writes to the application log, "file" appends to notify.file, and any other
+ * value is the class name of a NotificationSender with a public no-argument constructor.
+ */
+public final class NotificationSenderFactory {
+    private NotificationSenderFactory() {
+    }
+
+    /**
+     * @return New sender
+     * @throws IllegalStateException if notify.sender names a class that cannot be used
+     */
+    public static NotificationSender create() {
+        String type = AppConfig.getString("notify.sender", "log").trim();
+        return switch (type.toLowerCase()) {
+            case "log" -> new LoggingNotificationSender();
+            case "file" -> new FileNotificationSender(Path.of(AppConfig.getString("notify.file", "notifications.log")));
+            default -> load(type);
+        };
+    }
+
+    private static NotificationSender load(String className) {
+        try {
+            Class<?> type = Class.forName(className);
+            if (!NotificationSender.class.isAssignableFrom(type)) {
+                throw new IllegalStateException(className + " does not implement NotificationSender");
+            }
+            return (NotificationSender) type.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException | IllegalAccessException
+                 | InvocationTargetException e) {
+            throw new IllegalStateException("Unknown notify.sender: " + className, e);
+        }
+    }
+}
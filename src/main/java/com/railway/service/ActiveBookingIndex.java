@@ -0,0 +1,181 @@
+package com.railway.service;
+
+import com.railway.metrics.TimedLock;
+import com.railway.model.Leg;
+import com.railway.model.SeatRelease;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of confirmed bookings and their seats, keyed by user name.
+ * Cancellation looks up the user's bookings here instead of scanning booking history.
+ * Each user's entry has its own lock, so cancellations for one user are serialized
+ * while different users proceed in parallel.
+ */
+public class ActiveBookingIndex {
+    private final Map<String, UserBookings> byUser = new ConcurrentHashMap<>();
+
+    /**
+     * Records a confirmed booking.
+     * @param userName User name
+     * @param bookingId Booking ID
+     * @param seatIds Seats held by the booking
+     */
+    public void add(String userName, int bookingId, int[] seatIds) {
+        add(userName, bookingId, seatIds, null);
+    }
+
+    /**
+     * Records a confirmed booking.
+     * @param userName User name
+     * @param bookingId Booking ID
+     * @param seatIds Seats held by the booking
+     * @param leg Leg the seats are held for, or null for the full journey
+     */
+    public void add(String userName, int bookingId, int[] seatIds, Leg leg) {
+        while (true) {
+            UserBookings bookings = byUser.computeIfAbsent(userName, UserBookings::new);
+            synchronized (bookings) {
+                if (!bookings.removed) {
+                    int[] seats = seatIds.clone();
+                    Arrays.sort(seats);
+                    bookings.seatsByBooking.put(bookingId, seats);
+                    if (leg != null) {
+                        bookings.legs.put(bookingId, leg);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a user's entry and locks it. An entry removed by a concurrent cancellation
+     * between the lookup and the lock is skipped and the lookup repeated, so the caller
+     * always holds the user's current entry.
+     * @param userName User name
+     * @param create true to create an empty entry if the user has none, e.g. in cluster
+     *               mode, where the user may hold bookings made on another instance
+     * @return The user's live entry, locked by the caller's thread, or null if the user
+     *         holds no confirmed booking and create is false
+     */
+    public UserBookings lockForUser(String userName, boolean create) {
+        while (true) {
+            UserBookings bookings = create ? byUser.computeIfAbsent(userName, UserBookings::new) : byUser.get(userName);
+            if (bookings == null) return null;
+            bookings.lock();
+            synchronized (bookings) {
+                if (!bookings.removed) return bookings;
+            }
+            bookings.unlock();
+        }
+    }
+
+    /**
+     * Confirmed bookings of one user, oldest first. Callers hold lock() around
+     * plan-persist-apply sequences. It is a ReentrantLock rather than the object's
+     * monitor because the sequence blocks on JDBC, which would pin a virtual thread.
+     */
+    public final class UserBookings {
+        private final String userName;
+        private final TreeMap<Integer, int[]> seatsByBooking = new TreeMap<>();
+        private final Map<Integer, Leg> legs = new HashMap<>();
+        private final ReentrantLock sequenceLock = new TimedLock("user");
+        private boolean removed;
+
+        private UserBookings(String userName) {
+            this.userName = userName;
+        }
+
+        public void lock() {
+            sequenceLock.lock();
+        }
+
+        public void unlock() {
+            sequenceLock.unlock();
+        }
+
+        /**
+         * @return Total seats held across the user's confirmed bookings
+         */
+        public synchronized int heldSeats() {
+            int held = 0;
+            for (int[] seats : seatsByBooking.values()) {
+                held += seats.length;
+            }
+            return held;
+        }
+
+        /**
+         * Chooses exactly the given number of seats to release, oldest booking first.
+         * Within a partially cancelled booking the highest-numbered seats are released.
+         * @param seatsToCancel Number of seats
+         * @return Per-booking releases, or an empty list if the user holds fewer seats
+         */
+        public synchronized List<SeatRelease> planRelease(int seatsToCancel) {
+            List<SeatRelease> plan = new ArrayList<>();
+            if (heldSeats() < seatsToCancel) return plan;
+            int remaining = seatsToCancel;
+            for (Map.Entry<Integer, int[]> entry : seatsByBooking.entrySet()) {
+                if (remaining == 0) break;
+                int[] seats = entry.getValue();
+                int take = Math.min(remaining, seats.length);
+                plan.add(new SeatRelease(entry.getKey(), Arrays.copyOfRange(seats, seats.length - take, seats.length),
+                        seats.length - take, legs.get(entry.getKey())));
+                remaining -= take;
+            }
+            return plan;
+        }
+
+        /**
+         * Replaces the entry's bookings with those read from the store. The caller holds lock().
+         * @param seats Seats of each confirmed booking
+         * @param bookingLegs Leg of each confirmed booking, or null for the full journey
+         */
+        public synchronized void reload(Map<Integer, int[]> seats, Map<Integer, Leg> bookingLegs) {
+            seatsByBooking.clear();
+            legs.clear();
+            seats.forEach((bookingId, held) -> {
+                int[] sorted = held.clone();
+                Arrays.sort(sorted);
+                seatsByBooking.put(bookingId, sorted);
+                Leg leg = bookingLegs.get(bookingId);
+                if (leg != null) {
+                    legs.put(bookingId, leg);
+                }
+            });
+            if (seatsByBooking.isEmpty()) {
+                removed = true;
+                byUser.remove(userName, this);
+            }
+        }
+
+        /**
+         * Applies persisted releases to the index.
+         * @param plan Releases returned by planRelease
+         */
+        public synchronized void apply(List<SeatRelease> plan) {
+            for (SeatRelease release : plan) {
+                int[] seats = seatsByBooking.get(release.getBookingId());
+                if (seats == null) continue;
+                if (release.isFullCancellation()) {
+                    seatsByBooking.remove(release.getBookingId());
+                    legs.remove(release.getBookingId());
+                } else {
+                    seatsByBooking.put(release.getBookingId(), Arrays.copyOf(seats, release.getRemainingSeats()));
+                }
+            }
+            if (seatsByBooking.isEmpty()) {
+                removed = true;
+                byUser.remove(userName, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.railway.service;
+
+/**
+ * Segment tree over a row of seats that indexes runs of adjacent free seats.
+ * Each node stores the free run at the start of its range, at the end of its range and
+ * the longest run anywhere inside it, so both updates and "leftmost run of at least N
+ * free seats" cost O(log n). Not thread-safe; SeatInventory guards each tree with its
+ * coach lock.
+ */
+public class FreeRunTree {
+    private final int size;
+    private final int leaves;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+
+    /**
+     * Constructs a tree with every seat free.
+     * @param size Number of seats
+     */
+    public FreeRunTree(int size) {
+        this.size = size;
+        int capacity = 1;
+        while (capacity < size) capacity <<= 1;
+        this.leaves = capacity;
+        this.prefix = new int[2 * capacity];
+        this.suffix = new int[2 * capacity];
+        this.longest = new int[2 * capacity];
+        for (int i = 0; i < size; i++) {
+            prefix[leaves + i] = suffix[leaves + i] = longest[leaves + i] = 1;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            merge(node);
+        }
+    }
+
+    /**
+     * Marks a seat free or taken.
+     * @param index Seat index, from 0
+     * @param free true if the seat is free
+     */
+    public void set(int index, boolean free) {
+        int node = leaves + index;
+        int value = free ? 1 : 0;
+        if (longest[node] == value) return;
+        prefix[node] = suffix[node] = longest[node] = value;
+        for (node >>= 1; node > 0; node >>= 1) {
+            merge(node);
+        }
+    }
+
+    /**
+     * @return Length of the longest run of free seats
+     */
+    public int longest() {
+        return longest[1];
+    }
+
+    /**
+     * Finds the leftmost run of at least the given number of free seats.
+     * @param length Run length, at least 1
+     * @return Index of the first seat of the run, or -1 if there is none
+     */
+    public int findFirst(int length) {
+        if (length < 1 || longest[1] < length) return -1;
+        int node = 1;
+        int start = 0;
+        int span = leaves;
+        while (node < leaves) {
+            int left = 2 * node;
+            int half = span >> 1;
+            if (longest[left] >= length) {
+                node = left;
+            } else if (suffix[left] + prefix[left + 1] >= length) {
+                return start + half - suffix[left];
+            } else {
+                node = left + 1;
+                start += half;
+            }
+            span = half;
+        }
+        return start;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void merge(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        int half = leaves >> (31 - Integer.numberOfLeadingZeros(node)) >> 1;
+        prefix[node] = prefix[left] == half ? half + prefix[right] : prefix[left];
+        suffix[node] = suffix[right] == half ? half + suffix[left] : suffix[right];
+        longest[node] = Math.max(Math.max(longest[left], longest[right]), suffix[left] + prefix[right]);
+    }
+}
@@ -0,0 +1,177 @@
+package com.railway.service;
+
+import com.railway.dao.BookingStore;
+import com.railway.model.Booking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persists bookings whose seats were already allocated in memory.
+ * Requests wait in a bounded queue; a single writer thread flushes up to batchSize of
+ * them in one transaction as soon as the batch is full or flushIntervalMs has passed
+ * since the first queued request (group commit). If a group fails, each booking is
+ * retried on its own so one bad request cannot fail its neighbours.
+ * Futures are completed on a separate callback pool, so dependent stages (recording the
+ * booking, publishing seat changes, logging) never delay the next flush.
+ */
+public class GroupCommitWriter {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+    private final BookingStore store;
+    private final BlockingQueue<PendingBooking> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Thread writer;
+    private final ExecutorService callbacks;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs and starts the writer.
+     * @param store Store the groups are committed to
+     * @param queueCapacity Maximum number of queued requests
+     * @param batchSize Maximum bookings per transaction
+     * @param flushIntervalMs Maximum time a request waits for its group to fill
+     * @param callbackThreads Threads that complete the futures and run their callbacks
+     */
+    public GroupCommitWriter(BookingStore store, int queueCapacity, int batchSize, long flushIntervalMs,
+                             int callbackThreads) {
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callbacks = Executors.newFixedThreadPool(Math.max(1, callbackThreads), r -> {
+            Thread thread = new Thread(r, "booking-commit-callback-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer = new Thread(this::runWriter, "booking-group-commit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a booking for the next group commit.
+     * @param booking Booking to insert
+     * @param seatIds Seats to assign, or null for a waitlisted booking
+     * @return Future completed with the generated booking ID, or exceptionally on failure
+     */
+    public CompletableFuture<Integer> submit(Booking booking, int[] seatIds) {
+        PendingBooking pending = new PendingBooking(booking, seatIds, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Booking queue is full"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * @return Number of requests waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting requests, flushes the ones already queued and waits for their
+     * callbacks.
+     */
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+            callbacks.shutdown();
+            if (!callbacks.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Booking callbacks still running after shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<PendingBooking> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = running ? queue.take() : queue.poll();
+                if (first == null) break;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingBooking next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested; flush what we have and drain the rest.
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        logger.info("Group commit writer stopped.");
+    }
+
+    private void flush(List<PendingBooking> batch) {
+        List<Booking> bookings = new ArrayList<>(batch.size());
+        List<int[]> seatIds = new ArrayList<>(batch.size());
+        for (PendingBooking pending : batch) {
+            bookings.add(pending.booking);
+            seatIds.add(pending.seatIds);
+        }
+        try {
+            int[] bookingIds = store.addBookings(bookings, seatIds);
+            logger.debug("Group-committed {} bookings.", batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), bookingIds[i], null);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Group commit of {} bookings failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingBooking pending : batch) {
+                try {
+                    int bookingId = pending.seatIds == null
+                            ? store.addBooking(pending.booking)
+                            : store.addConfirmedBooking(pending.booking, pending.seatIds);
+                    if (bookingId == -1) {
+                        throw new SQLException("No booking ID generated for " + pending.booking.getUserName());
+                    }
+                    complete(pending, bookingId, null);
+                } catch (SQLException | RuntimeException ex) {
+                    complete(pending, 0, ex);
+                }
+            }
+        }
+    }
+
+    private void complete(PendingBooking pending, int bookingId, Throwable error) {
+        Runnable completion = () -> {
+            if (error == null) {
+                pending.future.complete(bookingId);
+            } else {
+                pending.future.completeExceptionally(error);
+            }
+        };
+        try {
+            callbacks.execute(completion);
+        } catch (RejectedExecutionException e) {
+            // The pool is gone after a slow shutdown; complete here rather than drop the result.
+            completion.run();
+        }
+    }
+
+    private record PendingBooking(Booking booking, int[] seatIds, CompletableFuture<Integer> future) {
+    }
+}
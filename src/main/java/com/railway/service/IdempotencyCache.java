@@ -0,0 +1,109 @@
+package com.railway.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring cache of request results keyed by client request ID.
+ * A repeated request gets the first request's result; while the first is still running,
+ * repeats wait for it instead of running again. Lookups are a ConcurrentHashMap read,
+ * so retry storms never queue behind booking locks. Entries leave in insertion order
+ * once they expire or the cache exceeds its size; TTL is fixed, so that is also expiry
+ * order.
+ * @param <T> Result type
+ */
+public class IdempotencyCache<T> {
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<T>> order = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    /**
+     * Constructs an empty cache.
+     * @param maxEntries Maximum number of remembered requests
+     * @param ttlMs How long a result is remembered
+     */
+    public IdempotencyCache(int maxEntries, long ttlMs) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = Math.max(1, ttlMs) * 1_000_000;
+    }
+
+    /**
+     * Runs a request once per request ID.
+     * @param requestId Client request ID
+     * @param action Runs the request
+     * @param remember Decides whether a result is kept; results that are not kept are
+     *                 still returned to requests that waited for them, but a later retry
+     *                 runs the action again
+     * @return The result of this or the earlier request with the same ID
+     */
+    public T execute(String requestId, Supplier<T> action, Predicate<T> remember) {
+        long now = System.nanoTime();
+        Entry<T> existing = entries.get(requestId);
+        if (existing != null && now - existing.expiresAt < 0) {
+            return join(existing.result);
+        }
+        if (existing != null) {
+            entries.remove(requestId, existing);
+        }
+        Entry<T> mine = new Entry<>(requestId, now + ttlNanos);
+        existing = entries.putIfAbsent(requestId, mine);
+        if (existing != null) {
+            return join(existing.result);
+        }
+        order.add(mine);
+        evict(now);
+        try {
+            T result = action.get();
+            if (!remember.test(result)) {
+                entries.remove(requestId, mine);
+            }
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(requestId, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of remembered requests, including expired ones not yet evicted
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry<T> oldest;
+        while ((oldest = order.peek()) != null && (entries.size() > maxEntries || now - oldest.expiresAt >= 0)) {
+            if (order.remove(oldest)) {
+                entries.remove(oldest.requestId, oldest);
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static final class Entry<T> {
+        final String requestId;
+        final long expiresAt;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Entry(String requestId, long expiresAt) {
+            this.requestId = requestId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,58 +1,263 @@
 package com.railway.service;
 
-import com.railway.dao.BookingDAO;
+import com.railway.config.AppConfig;
+import com.railway.dao.BookingStore;
+import com.railway.dao.BookingStoreFactory;
 import com.railway.dao.DatabaseConnection;
-import com.railway.dao.DatabaseInitializer;
+import com.railway.dao.DuplicateRequestException;
+import com.railway.dao.SeatConflictException;
+import com.railway.metrics.BookingCommitEvent;
+import com.railway.metrics.BookingMetrics;
+import com.railway.metrics.BookingRequestEvent;
+import com.railway.metrics.CancellationEvent;
+import com.railway.metrics.MetricsPublisher;
+import com.railway.metrics.SeatAllocationEvent;
+import com.railway.metrics.TimedLock;
+import com.railway.metrics.Timer;
+import com.railway.metrics.WaitlistPromotionEvent;
 import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingResult;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.ReadSnapshot;
+import com.railway.model.SeatRelease;
+import com.railway.notify.NotificationDispatcher;
+import com.railway.notify.NotificationSenderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manages railway ticket bookings, cancellations, and waitlist processing.
+ * When route.stations is configured, a booking may cover only part of the route; the
+ * same seat can then be sold for disjoint legs. Leg bookings are never waitlisted.
+ * Seat map, history and statistics reads are served from a ReadSnapshot published in
+ * the background, so readers never take booking locks or query the store.
  */
 public class RailwayTicketBookingSystem {
     private static final Logger logger = LoggerFactory.getLogger(RailwayTicketBookingSystem.class);
+    private static final int[] REJECTED = new int[0];
+    private static final int MAX_SEATS_PER_BOOKING = 10;
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
     private final int totalSeats;
-    private final ReentrantLock lock = new ReentrantLock();
-    private final List<Runnable> updateListeners = new ArrayList<>();
+    private final BookingStore store;
+    private final Route route = Route.fromConfig();
+    private final ReentrantLock waitlistLock = new TimedLock("waitlist");
+    private final SeatInventory inventory;
+    private final WaitlistIndex waitlist = new WaitlistIndex(MAX_SEATS_PER_BOOKING);
+    private final ActiveBookingIndex activeBookings = new ActiveBookingIndex();
+    private final AtomicReference<BookingStats> stats = new AtomicReference<>(BookingStats.EMPTY);
+    private final SeatChangePublisher seatChanges = new SeatChangePublisher();
+    private final GroupCommitWriter groupCommitWriter;
+    private final IdempotencyCache<Boolean> idempotency = new IdempotencyCache<>(
+            AppConfig.getInt("idempotency.cache.size", 100000),
+            AppConfig.getLong("idempotency.ttl.ms", 600000));
+    private final int claimRetries = Math.max(0, AppConfig.getInt("cluster.claim.retries", 3));
+    private final long retryBackoffMs = Math.max(1, AppConfig.getLong("cluster.retry.backoff.ms", 20));
+    private final ScheduledExecutorService inventoryRefresher;
+    private final MetricsPublisher metrics;
+    private final NotificationDispatcher notifications;
+    private final ReadSnapshotPublisher snapshots;
+    private final Timer bookTimer = BookingMetrics.timer("op.book");
+    private final Timer cancelTimer = BookingMetrics.timer("op.cancel");
+    private final Timer submitTimer = BookingMetrics.timer("op.submit");
+    private final Timer waitlistTimer = BookingMetrics.timer("op.processWait");
 
     /**
-     * Constructs the booking system and initializes the database.
+     * Constructs the booking system and initializes the booking store.
      * @param totalSeats Total number of seats
      */
     public RailwayTicketBookingSystem(int totalSeats) {
+        this(totalSeats, BookingStoreFactory.getStore());
+    }
+
+    /**
+     * Constructs the booking system on a given store, e.g. a fresh InMemoryBookingStore in tests.
+     * @param totalSeats Total number of seats
+     * @param store Booking store
+     */
+    RailwayTicketBookingSystem(int totalSeats, BookingStore store) {
         this.totalSeats = totalSeats;
+        this.store = store;
+        this.inventory = new SeatInventory(totalSeats, AppConfig.getInt("seats.per.coach", 72), route.getSegmentCount());
+        this.snapshots = new ReadSnapshotPublisher(seatChanges::getVersion, inventory::toSeatMap, stats::get,
+                inventory::getFreeCount, waitlist::size, AppConfig.getInt("snapshot.history.size", 1000));
         initialize();
+        this.groupCommitWriter = new GroupCommitWriter(store,
+                AppConfig.getInt("pipeline.queue.capacity", 10000),
+                AppConfig.getInt("pipeline.batch.size", 64),
+                AppConfig.getLong("pipeline.flush.interval.ms", 5),
+                AppConfig.getInt("pipeline.callback.threads", 2));
+        this.inventoryRefresher = startInventoryRefresher();
+        this.metrics = new MetricsPublisher(inventory::getFreeCount, waitlist::size, groupCommitWriter::getQueueDepth,
+                DatabaseConnection::getActiveConnections, DatabaseConnection::getIdleConnections,
+                DatabaseConnection::getWaitingThreads);
+        metrics.start();
+        this.notifications = startNotificationDispatcher();
+    }
+
+    /**
+     * Booking changes leave notifications in the store's outbox; the dispatcher delivers
+     * them in the background. With notify.enabled=false they stay in the outbox, e.g. for
+     * cluster members other than the one that sends.
+     * @return Running dispatcher, or null if disabled
+     */
+    private NotificationDispatcher startNotificationDispatcher() {
+        if (!AppConfig.getBoolean("notify.enabled", true)) return null;
+        NotificationDispatcher dispatcher = new NotificationDispatcher(store, NotificationSenderFactory.create());
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    /**
+     * In cluster mode other instances book and cancel seats in the same database, so the
+     * inventory is periodically reconciled with it. Seat claims are conditional in the
+     * store either way; the refresh only keeps this instance from offering seats that are
+     * gone and lets it reuse seats freed elsewhere.
+     * @return Refresh scheduler, or null outside cluster mode
+     */
+    private ScheduledExecutorService startInventoryRefresher() {
+        if (!AppConfig.getBoolean("cluster.mode", false)) return null;
+        String storeType = AppConfig.getString("store.type", "jdbc").trim();
+        if (!storeType.equalsIgnoreCase("jdbc")) {
+            logger.warn("cluster.mode ignored: store.type {} is local to this process.", storeType);
+            return null;
+        }
+        ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, AppConfig.getLong("cluster.refresh.interval.ms", 2000));
+        refresher.scheduleWithFixedDelay(this::refreshInventory, period, period, TimeUnit.MILLISECONDS);
+        logger.info("Cluster mode: refreshing seat inventory every {} ms.", period);
+        return refresher;
+    }
+
+    /**
+     * Reconciles the inventory and reloads the waitlist from the store. Bookings waitlisted
+     * or promoted on other instances are picked up here; promoting a booking another
+     * instance already confirmed fails the conditional confirmWaitlistedBooking and only
+     * drops it from this instance's waitlist.
+     */
+    private void refreshInventory() {
+        try {
+            int changed = inventory.reconcile(store.getBookedSeats().keySet(), store.getHeldLegs());
+            if (changed > 0) {
+                logger.info("Inventory refresh picked up {} seats changed by other instances; {} free.", changed,
+                        inventory.getFreeCount());
+            }
+            List<Booking> waitlisted = store.getWaitlistedBookings();
+            waitlistLock.lock();
+            try {
+                waitlist.rebuild(waitlisted);
+            } finally {
+                waitlistLock.unlock();
+            }
+            if (!waitlisted.isEmpty() && inventory.getFreeCount() > 0) {
+                processWait();
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Inventory refresh failed: {}", e.getMessage(), e);
+        }
     }
 
     /**
-     * Adds a listener for UI updates.
-     * @param listener Runnable to execute on update
+     * Adds a listener for seat changes. Events are versioned, carry per-seat deltas and
+     * are delivered asynchronously in version order.
+     * @param listener Listener to notify
      */
-    public void addUpdateListener(Runnable listener) {
-        updateListeners.add(listener);
+    public void addSeatChangeListener(SeatChangeListener listener) {
+        seatChanges.addListener(listener);
     }
 
-    private void notifyUpdate() {
-        updateListeners.forEach(Runnable::run);
+    /**
+     * @return Version of the latest seat change; a seat map read afterwards reflects it
+     */
+    public long getSeatChangeVersion() {
+        return seatChanges.getVersion();
     }
 
     private void initialize() {
         try {
-            DatabaseInitializer.initializeDatabase(totalSeats);
-            logger.info("Booking system initialized with {} seats.", totalSeats);
+            store.initialize(totalSeats);
+            Map<Integer, Integer> bookedSeats = store.getBookedSeats();
+            inventory.load(bookedSeats);
+            loadActiveBookings(store.getConfirmedBookings(), bookedSeats, store.getLegSeats());
+            waitlist.rebuild(store.getWaitlistedBookings());
+            stats.set(store.loadBookingStats());
+            List<Booking> recent = new ArrayList<>(store.findBookings(BookingQuery.ALL_NEWEST_FIRST, 0,
+                    AppConfig.getInt("snapshot.history.size", 1000)).getBookings());
+            Collections.reverse(recent);
+            snapshots.start(recent, AppConfig.getLong("snapshot.interval.ms", 10));
+            logger.info("Booking system initialized with {} seats, {} available, {} waitlisted.",
+                    totalSeats, inventory.getFreeCount(), waitlist.size());
+        } catch (SQLException e) {
+            logger.error("Initialization failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to load seat inventory", e);
         } catch (Exception e) {
             logger.error("Initialization failed: {}", e.getMessage(), e);
             throw e;
         }
     }
 
+    private void loadActiveBookings(List<Booking> confirmed, Map<Integer, Integer> bookedSeats, Map<Integer, int[]> legSeats) {
+        Map<Integer, List<Integer>> seatsByBooking = new HashMap<>();
+        bookedSeats.forEach((seatId, bookingId) -> seatsByBooking.computeIfAbsent(bookingId, id -> new ArrayList<>()).add(seatId));
+        for (Booking booking : confirmed) {
+            if (booking.getLeg() != null) {
+                loadLegBooking(booking, legSeats.get(booking.getId()));
+                continue;
+            }
+            List<Integer> seats = seatsByBooking.get(booking.getId());
+            if (seats != null) {
+                activeBookings.add(booking.getUserName(), booking.getId(), seats.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    private void loadLegBooking(Booking booking, int[] seats) {
+        try {
+            if (seats == null || !inventory.claim(seats, booking.getLeg())) {
+                logger.warn("Seats of leg booking {} are missing or overlap another booking: {}", booking.getId(),
+                        Arrays.toString(seats));
+                return;
+            }
+            inventory.markExternal(seats, booking.getLeg());
+            activeBookings.add(booking.getUserName(), booking.getId(), seats, booking.getLeg());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Leg booking {} does not fit the configured route: {}", booking.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return The configured route
+     */
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * Counts seats that can be booked for a leg.
+     * @param leg Leg, or null for the full journey
+     * @return Free seat count
+     */
+    public int getFreeSeatCount(Leg leg) {
+        Leg normalized = route.normalize(leg);
+        return normalized == null ? inventory.getFreeCount() : inventory.getFreeCount(normalized);
+    }
+
     /**
      * Books tickets for a user.
      * @param userName User's name
@@ -61,187 +266,562 @@ public class RailwayTicketBookingSystem {
      * @return true if successful, false otherwise
      */
     public boolean bookTicket(String userName, int requestedSeats, int[] selectedSeats) {
-        lock.lock();
+        return bookTicket(userName, requestedSeats, selectedSeats, null);
+    }
+
+    /**
+     * Books tickets for a user on part of the route. Unlike full-journey bookings, a leg
+     * booking fails instead of being waitlisted when not enough seats are free on it.
+     * @param userName User's name
+     * @param requestedSeats Number of seats
+     * @param selectedSeats Specific seat IDs (optional)
+     * @param leg Leg to travel, or null for the full journey
+     * @return true if successful, false otherwise
+     */
+    public boolean bookTicket(String userName, int requestedSeats, int[] selectedSeats, Leg leg) {
+        return bookTicket(userName, requestedSeats, selectedSeats, leg, null);
+    }
+
+    /**
+     * Books tickets at most once per client request ID. A retried request returns the
+     * first attempt's result without allocating seats again: recent successes are answered
+     * from memory, older ones are caught by the unique request_id in the store. Failed
+     * attempts are not remembered, so a retry after a failure books normally.
+     * @param userName User's name
+     * @param requestedSeats Number of seats
+     * @param selectedSeats Specific seat IDs (optional)
+     * @param leg Leg to travel, or null for the full journey
+     * @param requestId Client request ID of up to 64 characters, or null to skip deduplication
+     * @return true if successful, false otherwise
+     */
+    public boolean bookTicket(String userName, int requestedSeats, int[] selectedSeats, Leg leg, String requestId) {
+        BookingRequestEvent event = new BookingRequestEvent();
+        event.begin();
+        long start = BookingMetrics.start();
+        boolean booked = false;
+        try {
+            if (requestId == null) {
+                booked = book(userName, requestedSeats, selectedSeats, leg, null, event);
+            } else if (!isValidRequestId(requestId)) {
+                logger.error("Invalid request ID for {}: {}", userName, requestId);
+            } else {
+                booked = idempotency.execute("book:" + requestId,
+                        () -> book(userName, requestedSeats, selectedSeats, leg, requestId, event), Boolean::booleanValue);
+            }
+            return booked;
+        } finally {
+            bookTimer.stop(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.userName = userName;
+                event.seats = requestedSeats;
+                event.leg = leg != null ? leg.toString() : null;
+                event.requestId = requestId;
+                if (event.status == null) {
+                    // Set by commitBooking unless an earlier request with the same ID answered.
+                    event.status = booked ? "DUPLICATE" : "FAILED";
+                }
+                event.commit();
+            }
+        }
+    }
+
+    private boolean book(String userName, int requestedSeats, int[] selectedSeats, Leg leg, String requestId,
+                         BookingRequestEvent event) {
         try {
-            if (!isValidUserName(userName) || requestedSeats <= 0 || requestedSeats > 10) {
-                logger.error("Invalid booking request: userName={}, seats={}", userName, requestedSeats);
+            leg = route.normalize(leg);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid booking request by {}: {}", userName, e.getMessage());
+            return false;
+        }
+        for (int attempt = 0; ; attempt++) {
+            event.attempts = attempt + 1;
+            int[] seatsToBook = allocateSeats(userName, requestedSeats, selectedSeats, leg);
+            if (seatsToBook == REJECTED) return false;
+            if (seatsToBook == null && leg != null) {
+                logger.warn("Not enough seats free for {} on {}: {} requested.", userName, route.describe(leg), requestedSeats);
                 return false;
             }
-            BookingDAO dao = new BookingDAO();
-            List<Integer> availableSeats = dao.getAvailableSeats(totalSeats);
-            if (selectedSeats != null && selectedSeats.length > 0) {
-                if (!validateSelectedSeats(selectedSeats, availableSeats, requestedSeats)) {
-                    logger.error("Invalid seat selection by {}: {}", userName, Arrays.toString(selectedSeats));
+            try {
+                return commitBooking(userName, requestedSeats, selectedSeats, leg, requestId, seatsToBook, event);
+            } catch (SeatConflictException e) {
+                boolean selected = selectedSeats != null && selectedSeats.length > 0;
+                if (selected || attempt >= claimRetries) {
+                    logger.warn("Booking failed for {}: seats {} were taken by another instance.", userName,
+                            Arrays.toString(e.getSeatIds()));
                     return false;
                 }
+                logger.info("Seats {} for {} were taken by another instance, retrying.", Arrays.toString(e.getSeatIds()), userName);
+                if (!backOff(attempt)) return false;
             }
-            boolean isWaitlisted = availableSeats.size() < requestedSeats;
-            String status = isWaitlisted ? "WAITLISTED" : "CONFIRMED";
-            Booking booking = new Booking(0, userName, requestedSeats, null, status);
-            int bookingId = dao.addBooking(booking);
+        }
+    }
+
+    /**
+     * Persists a booking whose seats are reserved. The reservation is released unless
+     * the booking commits; seats another instance took stay marked taken.
+     * @param seatsToBook Reserved seats, or null to waitlist
+     * @param event Request event, which gets the booking ID and status
+     * @return true if successful, false otherwise
+     * @throws SeatConflictException if another instance took some of the seats
+     */
+    private boolean commitBooking(String userName, int requestedSeats, int[] selectedSeats, Leg leg, String requestId,
+                                  int[] seatsToBook, BookingRequestEvent event) throws SeatConflictException {
+        boolean isWaitlisted = seatsToBook == null;
+        String status = isWaitlisted ? "WAITLISTED" : "CONFIRMED";
+        int[] unclaimed = seatsToBook;
+        try {
+            Booking booking = new Booking(0, userName, requestedSeats, null, status, leg, requestId);
+            BookingCommitEvent commitEvent = new BookingCommitEvent();
+            commitEvent.begin();
+            int bookingId = isWaitlisted ? store.addBooking(booking) : store.addConfirmedBooking(booking, seatsToBook);
+            commitEvent.end();
             if (bookingId == -1) {
                 logger.error("Failed to create booking for {}", userName);
                 return false;
             }
-            if (!isWaitlisted) {
-                List<Integer> seatsToBook = selectedSeats != null && selectedSeats.length > 0
-                        ? Arrays.stream(selectedSeats).boxed().toList()
-                        : availableSeats.subList(0, requestedSeats);
-                for (int seatId : seatsToBook) {
-                    dao.updateSeat(seatId, true, bookingId);
-                }
+            unclaimed = null;
+            event.bookingId = bookingId;
+            event.status = status;
+            if (commitEvent.shouldCommit()) {
+                commitEvent.bookingId = bookingId;
+                commitEvent.userName = userName;
+                commitEvent.seats = requestedSeats;
+                commitEvent.status = status;
+                commitEvent.leg = leg != null ? leg.toString() : null;
+                commitEvent.sinceRequest = System.nanoTime() - event.startNanos;
+                commitEvent.commit();
+            }
+            recordBooking(bookingId, userName, requestedSeats, status, seatsToBook, selectedSeats, leg);
+            if (isWaitlisted && inventory.getFreeCount() >= requestedSeats) {
+                // Seats were freed between the availability check and the insert.
+                processWait();
             }
-            logger.info("Booking {} for {}: {} seats, status={}. Seats: {}", bookingId, userName, requestedSeats, status,
-                    selectedSeats != null ? Arrays.toString(selectedSeats) : "Auto-allocated");
-            logger.info("Simulated email to {}: Booking {} for {} seats", userName, status, requestedSeats);
-            notifyUpdate();
+            return true;
+        } catch (SeatConflictException e) {
+            inventory.markExternal(e.getSeatIds(), leg);
+            unclaimed = without(seatsToBook, e.getSeatIds());
+            throw e;
+        } catch (DuplicateRequestException e) {
+            // Retry of a request that already booked; the seats reserved for it go back.
+            logger.info("Request {} by {} was already booked as booking {}.", requestId, userName, e.getBookingId());
+            event.bookingId = e.getBookingId();
+            event.status = "DUPLICATE";
             return true;
         } catch (SQLException e) {
             logger.error("Booking failed for {}: {}", userName, e.getMessage(), e);
             return false;
         } finally {
-            lock.unlock();
+            if (unclaimed != null) {
+                releaseSeats(unclaimed, leg);
+            }
+        }
+    }
+
+    /**
+     * Sleeps before retrying a lost seat claim: exponential backoff with jitter, so
+     * instances racing for the same seats spread out.
+     * @return false if interrupted
+     */
+    private boolean backOff(int attempt) {
+        long delay = retryBackoffMs << Math.min(attempt, 10);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
+    private static int[] without(int[] seatIds, int[] removed) {
+        Set<Integer> skip = new HashSet<>();
+        for (int seatId : removed) skip.add(seatId);
+        return Arrays.stream(seatIds).filter(seatId -> !skip.contains(seatId)).toArray();
+    }
+
+    /**
+     * Books tickets asynchronously. Seats are allocated in memory immediately; the
+     * booking is persisted by the group-commit writer together with other requests.
+     * @param userName User's name
+     * @param requestedSeats Number of seats
+     * @param selectedSeats Specific seat IDs (optional)
+     * @return Future completed with the booking result once it is committed or rejected
+     */
+    public CompletableFuture<BookingResult> submitBooking(String userName, int requestedSeats, int[] selectedSeats) {
+        BookingRequestEvent event = new BookingRequestEvent();
+        event.begin();
+        long start = BookingMetrics.start();
+        int[] seatsToBook = allocateSeats(userName, requestedSeats, selectedSeats, null);
+        if (seatsToBook == REJECTED) {
+            commitRequestEvent(event, userName, requestedSeats, 0, "FAILED");
+            return CompletableFuture.completedFuture(BookingResult.failed(userName, requestedSeats, "Invalid booking request"));
+        }
+        boolean isWaitlisted = seatsToBook == null;
+        String status = isWaitlisted ? "WAITLISTED" : "CONFIRMED";
+        Booking booking = new Booking(0, userName, requestedSeats, null, status);
+        return groupCommitWriter.submit(booking, seatsToBook).handle((bookingId, error) -> {
+            submitTimer.stop(start);
+            commitRequestEvent(event, userName, requestedSeats, error == null ? bookingId : 0,
+                    error == null ? status : "FAILED");
+            if (error != null) {
+                if (seatsToBook != null && error instanceof SeatConflictException conflict) {
+                    inventory.markExternal(conflict.getSeatIds(), null);
+                    inventory.release(without(seatsToBook, conflict.getSeatIds()));
+                } else if (seatsToBook != null) {
+                    inventory.release(seatsToBook);
+                }
+                logger.error("Booking failed for {}: {}", userName, error.getMessage(), error);
+                return BookingResult.failed(userName, requestedSeats, error.getMessage());
+            }
+            recordBooking(bookingId, userName, requestedSeats, status, seatsToBook, selectedSeats, null);
+            if (isWaitlisted && inventory.getFreeCount() >= requestedSeats) {
+                CompletableFuture.runAsync(this::processWait);
+            }
+            return BookingResult.booked(bookingId, userName, requestedSeats, status, seatsToBook);
+        });
+    }
+
+    private static void commitRequestEvent(BookingRequestEvent event, String userName, int requestedSeats,
+                                           int bookingId, String status) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.userName = userName;
+            event.seats = requestedSeats;
+            event.bookingId = bookingId;
+            event.status = status;
+            event.attempts = 1;
+            event.commit();
+        }
+    }
+
+    /**
+     * Stops the group-commit writer after flushing queued bookings, then stops event and
+     * notification delivery and closes the database connection pool.
+     */
+    public void shutdown() {
+        metrics.stop();
+        if (inventoryRefresher != null) {
+            inventoryRefresher.shutdownNow();
+        }
+        groupCommitWriter.shutdown();
+        seatChanges.shutdown();
+        snapshots.shutdown();
+        if (notifications != null) {
+            notifications.stop();
+        }
+        DatabaseConnection.shutdown();
+    }
+
+    /**
+     * Validates a request and reserves its seats in memory.
+     * @return Reserved seats, null if not enough seats are free, or REJECTED
+     */
+    private int[] allocateSeats(String userName, int requestedSeats, int[] selectedSeats, Leg leg) {
+        SeatAllocationEvent event = new SeatAllocationEvent();
+        event.begin();
+        int[] seats = reserveSeats(userName, requestedSeats, selectedSeats, leg);
+        event.end();
+        if (event.shouldCommit()) {
+            event.userName = userName;
+            event.seats = requestedSeats;
+            event.allocated = seats != null ? seats.length : 0;
+            event.selected = selectedSeats != null && selectedSeats.length > 0;
+            event.leg = leg != null ? leg.toString() : null;
+            event.commit();
+        }
+        return seats;
+    }
+
+    private int[] reserveSeats(String userName, int requestedSeats, int[] selectedSeats, Leg leg) {
+        if (!isValidUserName(userName) || requestedSeats <= 0 || requestedSeats > MAX_SEATS_PER_BOOKING) {
+            logger.error("Invalid booking request: userName={}, seats={}", userName, requestedSeats);
+            return REJECTED;
+        }
+        if (selectedSeats != null && selectedSeats.length > 0) {
+            boolean claimed = selectedSeats.length == requestedSeats
+                    && (leg == null ? inventory.claim(selectedSeats) : inventory.claim(selectedSeats, leg));
+            if (!claimed) {
+                logger.error("Invalid seat selection by {}: {}", userName, Arrays.toString(selectedSeats));
+                return REJECTED;
+            }
+            return selectedSeats.clone();
+        }
+        return leg == null ? inventory.reserve(requestedSeats) : inventory.reserve(requestedSeats, leg);
+    }
+
     /**
-     * Cancels a booking.
+     * Frees seats in the inventory.
+     * @return Seats that are now free on the whole route
+     */
+    private int[] releaseSeats(int[] seatIds, Leg leg) {
+        if (leg != null) {
+            return inventory.release(seatIds, leg);
+        }
+        inventory.release(seatIds);
+        return seatIds;
+    }
+
+    private void recordBooking(int bookingId, String userName, int requestedSeats, String status, int[] seatsToBook,
+                               int[] selectedSeats, Leg leg) {
+        if (seatsToBook != null) {
+            if (leg == null) {
+                inventory.assign(seatsToBook, bookingId);
+            }
+            activeBookings.add(userName, bookingId, seatsToBook, leg);
+            seatChanges.seatsBooked(seatsToBook, bookingId);
+        } else {
+            waitlist.add(new Booking(bookingId, userName, requestedSeats, null, status));
+        }
+        stats.updateAndGet(s -> s.withBooked(status, requestedSeats));
+        snapshots.bookingChanged(bookingId, userName, requestedSeats, status, leg);
+        logger.info("Booking {} for {}: {} seats on {}, status={}. Seats: {}", bookingId, userName, requestedSeats,
+                route.describe(leg), status, selectedSeats != null ? Arrays.toString(selectedSeats) : "Auto-allocated");
+    }
+
+    /**
+     * Cancels seats from a user's confirmed bookings, oldest booking first.
+     * Exactly seatsToCancel seats are released in one transaction; bookings left
+     * without seats are cancelled.
      * @param userName User’s name
      * @param seatsToCancel Number of seats to cancel
      * @return true if successful, false otherwise
      */
     public boolean cancelBooking(String userName, int seatsToCancel) {
-        lock.lock();
+        return cancelBooking(userName, seatsToCancel, null);
+    }
+
+    /**
+     * Cancels seats at most once per client request ID. Cancellations leave no row of
+     * their own in the store, so a retry is recognised only while the first attempt is
+     * in the idempotency cache (idempotency.ttl.ms).
+     * @param userName User’s name
+     * @param seatsToCancel Number of seats to cancel
+     * @param requestId Client request ID of up to 64 characters, or null to skip deduplication
+     * @return true if successful, false otherwise
+     */
+    public boolean cancelBooking(String userName, int seatsToCancel, String requestId) {
+        CancellationEvent event = new CancellationEvent();
+        event.begin();
+        long start = BookingMetrics.start();
+        boolean cancelled = false;
         try {
-            if (!isValidUserName(userName) || seatsToCancel <= 0) {
-                logger.error("Invalid cancellation request: userName={}, seats={}", userName, seatsToCancel);
-                return false;
+            if (requestId == null) {
+                cancelled = cancel(userName, seatsToCancel, event);
+            } else if (!isValidRequestId(requestId)) {
+                logger.error("Invalid request ID for {}: {}", userName, requestId);
+            } else {
+                cancelled = idempotency.execute("cancel:" + requestId, () -> cancel(userName, seatsToCancel, event),
+                        Boolean::booleanValue);
             }
-            BookingDAO dao = new BookingDAO();
-            List<Booking> bookings = dao.getBookingHistory();
-            for (Booking booking : bookings) {
-                if (booking.getUserName().equals(userName) && booking.getStatus().equals("CONFIRMED")) {
-                    String sql = "UPDATE bookings SET status = 'CANCELLED' WHERE id = ?";
-                    String seatSql = "UPDATE seats SET is_booked = FALSE, booking_id = NULL WHERE booking_id = ?";
-                    try (Connection conn = DatabaseConnection.getConnection()) {
-                        conn.setAutoCommit(false);
-                        try (PreparedStatement stmt = conn.prepareStatement(sql);
-                             PreparedStatement stmt2 = conn.prepareStatement(seatSql)) {
-                            stmt.setInt(1, booking.getId());
-                            stmt.executeUpdate();
-                            stmt2.setInt(1, booking.getId());
-                            stmt2.executeUpdate();
-                            conn.commit();
-                            logger.info("Cancelled booking {} for {}: {} seats", booking.getId(), userName, seatsToCancel);
-                            processWait();
-                            notifyUpdate();
-                            return true;
-                        } catch (SQLException e) {
-                            conn.rollback();
-                            throw e;
-                        }
-                    }
-                }
+            return cancelled;
+        } finally {
+            cancelTimer.stop(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.userName = userName;
+                event.seats = seatsToCancel;
+                event.success = cancelled;
+                event.commit();
             }
+        }
+    }
+
+    private boolean cancel(String userName, int seatsToCancel, CancellationEvent event) {
+        if (!isValidUserName(userName) || seatsToCancel <= 0) {
+            logger.error("Invalid cancellation request: userName={}, seats={}", userName, seatsToCancel);
+            return false;
+        }
+        ActiveBookingIndex.UserBookings bookings = activeBookings.lockForUser(userName, inventoryRefresher != null);
+        if (bookings == null) {
             logger.warn("No booking found for {} to cancel.", userName);
             return false;
+        }
+        List<SeatRelease> plan;
+        try {
+            if (inventoryRefresher != null) {
+                reloadUserBookings(userName, bookings);
+            }
+            plan = bookings.planRelease(seatsToCancel);
+            if (plan.isEmpty()) {
+                logger.warn("{} holds {} seats, cannot cancel {}.", userName, bookings.heldSeats(), seatsToCancel);
+                return false;
+            }
+            store.cancelSeats(plan);
+            bookings.apply(plan);
         } catch (SQLException e) {
             logger.error("Cancellation failed for {}: {}", userName, e.getMessage(), e);
             return false;
         } finally {
-            lock.unlock();
+            bookings.unlock();
+        }
+        event.bookings = plan.size();
+        for (SeatRelease release : plan) {
+            if (release.isFullCancellation()) event.cancelled++;
+            int[] freed = releaseSeats(release.getSeatIds(), release.getLeg());
+            if (freed.length > 0) {
+                seatChanges.seatsReleased(freed, release.getBookingId());
+            }
+            stats.updateAndGet(s -> s.withReleased(release.getSeatIds().length, release.isFullCancellation()));
+            snapshots.bookingChanged(release.getBookingId(), userName,
+                    release.isFullCancellation() ? release.getSeatIds().length : release.getRemainingSeats(),
+                    release.isFullCancellation() ? "CANCELLED" : "CONFIRMED", release.getLeg());
+            logger.info("Cancelled {} seats of booking {} for {}: {}", release.getSeatIds().length, release.getBookingId(),
+                    userName, release.isFullCancellation() ? "booking cancelled" : release.getRemainingSeats() + " seats kept");
         }
+        processWait();
+        return true;
+    }
+
+    /**
+     * In cluster mode the user may hold bookings made, shrunk or cancelled on other
+     * instances, so the entry is reloaded from the store (idx_bookings_user_status)
+     * before planning. The store's conditional updates reject a plan that races with
+     * another instance.
+     */
+    private void reloadUserBookings(String userName, ActiveBookingIndex.UserBookings bookings) throws SQLException {
+        Map<Integer, int[]> seats = store.getUserSeats(userName);
+        Map<Integer, Leg> legs = new HashMap<>();
+        Set<Integer> confirmed = new HashSet<>();
+        BookingQuery query = new BookingQuery(userName, "CONFIRMED", null, null, false);
+        BookingPage page;
+        int cursor = 0;
+        do {
+            page = store.findBookings(query, cursor, 500);
+            for (Booking booking : page.getBookings()) {
+                confirmed.add(booking.getId());
+                if (booking.getLeg() != null) {
+                    legs.put(booking.getId(), booking.getLeg());
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (page.hasMore());
+        seats.keySet().retainAll(confirmed);
+        bookings.reload(seats, legs);
     }
 
     private boolean isValidUserName(String name) {
         return name != null && !name.isEmpty() && name.length() <= 50 && name.matches("[a-zA-Z0-9 ]+");
     }
 
-    private boolean validateSelectedSeats(int[] selectedSeats, List<Integer> availableSeats, int requestedSeats) {
-        if (selectedSeats.length != requestedSeats) return false;
-        for (int seatId : selectedSeats) {
-            if (!availableSeats.contains(seatId)) return false;
-        }
-        return true;
+    private boolean isValidRequestId(String requestId) {
+        return !requestId.isEmpty() && requestId.length() <= MAX_REQUEST_ID_LENGTH;
     }
 
     /**
-     * Displays the seat map.
+     * Gets the latest read snapshot: one volatile read, no lock and no store query.
+     * It lags committed changes by at most about snapshot.interval.ms.
+     * @return Immutable snapshot of seat map, recent bookings and counters
+     */
+    public ReadSnapshot getReadSnapshot() {
+        return snapshots.current();
+    }
+
+    /**
+     * Displays the seat map from the read snapshot. A seat sold for any leg shows as booked.
      * @return String representation of seat availability
      */
     public String[] displaySeatMap() {
-        try {
-            BookingDAO dao = new BookingDAO();
-            List<Integer> availableSeats = dao.getAvailableSeats(totalSeats);
-            String[] seatMap = new String[totalSeats];
-            for (int i = 1; i <= totalSeats; i++) {
-                seatMap[i - 1] = availableSeats.contains(i) ? "Available" : "Booked";
-            }
-            logger.debug("Generated seat map display.");
-            return seatMap;
-        } catch (SQLException e) {
-            logger.error("Failed to display seat map: {}", e.getMessage(), e);
-            return new String[totalSeats];
-        }
+        return snapshots.current().getSeatMap().toArray(new String[0]);
     }
 
     /**
-     * Retrieves booking history.
-     * @return List of bookings
+     * Retrieves the most recent bookings (up to snapshot.history.size) from the read snapshot.
+     * @return Unmodifiable list of bookings in ID order
      */
     public List<Booking> getBookingHistory() {
+        return snapshots.current().getRecentBookings();
+    }
+
+    /**
+     * Finds one page of bookings from the store. Pages are keyed by booking ID, so later
+     * pages cost the same as the first and stay stable while bookings are added.
+     * @param query Filters and order
+     * @param cursor Cursor from the previous page, or 0 for the first page
+     * @param limit Maximum bookings on the page
+     * @return Page of bookings; empty if the store query failed
+     */
+    public BookingPage findBookings(BookingQuery query, int cursor, int limit) {
         try {
-            return new BookingDAO().getBookingHistory();
+            return store.findBookings(query, cursor, limit);
         } catch (SQLException e) {
-            logger.error("Failed to retrieve booking history: {}", e.getMessage(), e);
-            return new ArrayList<>();
+            logger.error("Failed to find bookings: {}", e.getMessage(), e);
+            return new BookingPage(List.of(), false);
         }
     }
 
     /**
-     * Retrieves booking statistics.
+     * Retrieves booking statistics from the read snapshot.
      * @return Map of status to count
      */
     public Map<String, Integer> getBookingStats() {
-        try {
-            return new BookingDAO().getBookingStats();
-        } catch (SQLException e) {
-            logger.error("Failed to retrieve booking stats: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        return snapshots.current().getStats().toStatusCounts();
+    }
+
+    /**
+     * Retrieves a consistent snapshot of booking counters, including seat totals.
+     * @return Booking statistics snapshot
+     */
+    public BookingStats getBookingStatsSnapshot() {
+        return snapshots.current().getStats();
     }
 
     /**
      * Processes waitlisted bookings when seats become available.
+     * Promotions are serialized by a dedicated waitlist lock; each step asks the waitlist
+     * index for the oldest booking that fits the free seats, so the cost is proportional
+     * to the number of promotions. Seat claims go through the per-coach inventory locks.
      */
     public void processWait() {
-        lock.lock();
+        long start = BookingMetrics.start();
+        waitlistLock.lock();
         try {
-            BookingDAO dao = new BookingDAO();
-            List<Booking> bookings = dao.getBookingHistory();
-            List<Integer> availableSeats = dao.getAvailableSeats(totalSeats);
-            for (Booking booking : bookings) {
-                if (booking.getStatus().equals("WAITLISTED") && availableSeats.size() >= booking.getSeatsBooked()) {
-                    String sql = "UPDATE bookings SET status = 'CONFIRMED' WHERE id = ?";
-                    try (Connection conn = DatabaseConnection.getConnection();
-                         PreparedStatement stmt = conn.prepareStatement(sql)) {
-                        stmt.setInt(1, booking.getId());
-                        stmt.executeUpdate();
+            Booking booking;
+            while ((booking = waitlist.firstFitting(inventory.getFreeCount())) != null) {
+                int[] seatsToBook = inventory.reserve(booking.getSeatsBooked());
+                if (seatsToBook == null) break;
+                waitlist.remove(booking);
+                WaitlistPromotionEvent event = new WaitlistPromotionEvent();
+                event.begin();
+                boolean confirmed = false;
+                try {
+                    confirmed = store.confirmWaitlistedBooking(booking.getId(), seatsToBook);
+                } catch (SeatConflictException e) {
+                    logger.info("Seats {} for waitlisted booking {} were taken by another instance.",
+                            Arrays.toString(e.getSeatIds()), booking.getId());
+                    waitlist.add(booking);
+                    inventory.markExternal(e.getSeatIds(), null);
+                    seatsToBook = without(seatsToBook, e.getSeatIds());
+                } catch (SQLException e) {
+                    waitlist.add(booking);
+                    throw e;
+                } finally {
+                    if (!confirmed) {
+                        inventory.release(seatsToBook);
                     }
-                    List<Integer> seatsToBook = availableSeats.subList(0, booking.getSeatsBooked());
-                    for (int seatId : seatsToBook) {
-                        dao.updateSeat(seatId, true, booking.getId());
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.bookingId = booking.getId();
+                        event.userName = booking.getUserName();
+                        event.seats = booking.getSeatsBooked();
+                        event.status = confirmed ? "CONFIRMED" : "WAITLISTED";
+                        event.commit();
                     }
-                    availableSeats.subList(0, booking.getSeatsBooked()).clear();
-                    logger.info("Processed waitlist booking {} for {}: {} seats", booking.getId(), booking.getUserName(), booking.getSeatsBooked());
-                    logger.info("Simulated email to {}: Waitlist booking confirmed for {} seats", booking.getUserName(), booking.getSeatsBooked());
                 }
+                if (!confirmed) continue;
+                inventory.assign(seatsToBook, booking.getId());
+                activeBookings.add(booking.getUserName(), booking.getId(), seatsToBook);
+                snapshots.bookingChanged(booking.getId(), booking.getUserName(), booking.getSeatsBooked(), "CONFIRMED", null);
+                seatChanges.seatsBooked(seatsToBook, booking.getId());
+                int promotedSeats = booking.getSeatsBooked();
+                stats.updateAndGet(s -> s.withPromoted(promotedSeats));
+                logger.info("Processed waitlist booking {} for {}: {} seats", booking.getId(), booking.getUserName(), booking.getSeatsBooked());
             }
-            notifyUpdate();
         } catch (SQLException e) {
             logger.error("Waitlist processing failed: {}", e.getMessage(), e);
         } finally {
-            lock.unlock();
+            waitlistLock.unlock();
+            waitlistTimer.stop(start);
         }
     }
 }
@@ -0,0 +1,153 @@
+package com.railway.service;
+
+import com.railway.metrics.BookingMetrics;
+import com.railway.metrics.Timer;
+import com.railway.model.Booking;
+import com.railway.model.BookingStats;
+import com.railway.model.Leg;
+import com.railway.model.ReadSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Publishes immutable ReadSnapshots through a volatile field, so readers take the
+ * current one with a single read: no lock, no store query.
+ * Writers only enqueue booking changes (a lock-free offer); a background thread checks
+ * every snapshot.interval.ms whether the seat version, the counters or the bookings
+ * changed and, if so, builds and publishes the next snapshot. Snapshots therefore lag
+ * committed changes by at most about one interval, and bursts of writes cost one rebuild.
+ * Recent bookings are kept for the last snapshot.history.size booking IDs.
+ */
+public class ReadSnapshotPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(ReadSnapshotPublisher.class);
+    private final LongSupplier seatVersion;
+    private final Supplier<String[]> seatMap;
+    private final Supplier<BookingStats> stats;
+    private final IntSupplier freeSeats;
+    private final IntSupplier waitlistLength;
+    private final int historySize;
+    private final ConcurrentLinkedQueue<Booking> changes = new ConcurrentLinkedQueue<>();
+    private final TreeMap<Integer, Booking> recent = new TreeMap<>();
+    private final Timer publishTimer = BookingMetrics.timer("snapshot.publish");
+    private final ScheduledExecutorService executor;
+    private volatile ReadSnapshot current;
+
+    /**
+     * @param seatVersion Supplies the seat change version; read before the seat map
+     * @param seatMap Supplies a fresh seat map
+     * @param stats Supplies the booking counters
+     * @param freeSeats Supplies the number of free seats
+     * @param waitlistLength Supplies the number of waitlisted bookings
+     * @param historySize Number of most recent bookings kept
+     */
+    public ReadSnapshotPublisher(LongSupplier seatVersion, Supplier<String[]> seatMap, Supplier<BookingStats> stats,
+                                 IntSupplier freeSeats, IntSupplier waitlistLength, int historySize) {
+        this.seatVersion = seatVersion;
+        this.seatMap = seatMap;
+        this.stats = stats;
+        this.freeSeats = freeSeats;
+        this.waitlistLength = waitlistLength;
+        this.historySize = Math.max(0, historySize);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "read-snapshot-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes the first snapshot and starts refreshing.
+     * @param history Bookings already in the store, in ID order; only the most recent are kept
+     * @param intervalMs Delay between change checks
+     */
+    public synchronized void start(List<Booking> history, long intervalMs) {
+        for (int i = Math.max(0, history.size() - historySize); i < history.size(); i++) {
+            Booking booking = history.get(i);
+            recent.put(booking.getId(), booking);
+        }
+        publish();
+        executor.scheduleWithFixedDelay(this::refresh, intervalMs, Math.max(1, intervalMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Latest snapshot
+     */
+    public ReadSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Records a new or changed booking. Safe to call from any thread; never blocks.
+     * @param bookingId Booking ID
+     * @param userName User name
+     * @param seats Seats booked; ignored for CANCELLED if the booking is already known
+     * @param status Status after the change
+     * @param leg Leg, or null for the full journey
+     */
+    public void bookingChanged(int bookingId, String userName, int seats, String status, Leg leg) {
+        if (historySize > 0) {
+            changes.offer(new Booking(bookingId, userName, seats, null, status, leg));
+        }
+    }
+
+    /**
+     * Stops refreshing; the last snapshot stays readable.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void refresh() {
+        try {
+            ReadSnapshot last = current;
+            if (changes.isEmpty() && last.getSeatVersion() == seatVersion.getAsLong() && last.getStats() == stats.get()
+                    && last.getWaitlistLength() == waitlistLength.getAsInt()) {
+                return;
+            }
+            publish();
+        } catch (RuntimeException e) {
+            logger.warn("Read snapshot refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void publish() {
+        long start = BookingMetrics.start();
+        ReadSnapshot last = current;
+        long version = seatVersion.getAsLong();
+        List<String> seats = Arrays.asList(seatMap.get());
+        List<Booking> bookings = last != null && changes.isEmpty() ? last.getRecentBookings() : drainChanges();
+        current = new ReadSnapshot(last != null ? last.getVersion() + 1 : 1, version, seats, bookings, stats.get(),
+                freeSeats.getAsInt(), waitlistLength.getAsInt());
+        publishTimer.stop(start);
+    }
+
+    private List<Booking> drainChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking change;
+        while ((change = changes.poll()) != null) {
+            if (!recent.isEmpty() && change.getId() < recent.firstKey() && recent.size() >= historySize) continue;
+            Booking known = recent.get(change.getId());
+            int seats = known != null && "CANCELLED".equals(change.getStatus()) ? known.getSeatsBooked() : change.getSeatsBooked();
+            recent.put(change.getId(), new Booking(change.getId(), change.getUserName(), seats,
+                    known != null ? known.getBookingTime() : now, change.getStatus(), change.getLeg(),
+                    known != null ? known.getRequestId() : null));
+        }
+        while (recent.size() > historySize) {
+            recent.pollFirstEntry();
+        }
+        return new ArrayList<>(recent.values());
+    }
+}
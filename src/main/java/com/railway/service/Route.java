@@ -0,0 +1,100 @@
+package com.railway.service;
+
+import com.railway.config.AppConfig;
+import com.railway.model.Leg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered stations of the train's route, read from route.stations in db.properties.
+ * Without a configured route the train has a single segment and every booking is for
+ * the full journey, which is the original seat model.
+ */
+public class Route {
+    private final List<String> stations;
+
+    /**
+     * Constructs a route.
+     * @param stations Station names in travel order; fewer than two means a single segment
+     */
+    public Route(List<String> stations) {
+        if (stations.size() > Leg.MAX_STOPS) {
+            throw new IllegalArgumentException("A route supports at most " + Leg.MAX_STOPS + " stations");
+        }
+        this.stations = stations.size() >= 2 ? List.copyOf(stations) : List.of("Origin", "Destination");
+    }
+
+    /**
+     * @return Route from the comma-separated route.stations setting
+     */
+    public static Route fromConfig() {
+        List<String> stations = new ArrayList<>();
+        for (String station : AppConfig.getString("route.stations", "").split(",")) {
+            if (!station.isBlank()) stations.add(station.trim());
+        }
+        return new Route(stations);
+    }
+
+    public List<String> getStations() {
+        return Collections.unmodifiableList(stations);
+    }
+
+    public int getSegmentCount() {
+        return stations.size() - 1;
+    }
+
+    /**
+     * @return true if bookings can cover only part of the route
+     */
+    public boolean hasLegs() {
+        return getSegmentCount() > 1;
+    }
+
+    /**
+     * Resolves station names to a leg.
+     * @param from Boarding station
+     * @param to Alighting station, after from on the route
+     * @return Leg, or null if it covers the full journey
+     * @throws IllegalArgumentException if a station is unknown or the order is wrong
+     */
+    public Leg leg(String from, String to) {
+        int fromStop = indexOf(from);
+        int toStop = indexOf(to);
+        if (toStop <= fromStop) {
+            throw new IllegalArgumentException(to + " does not come after " + from + " on the route");
+        }
+        return normalize(new Leg(fromStop, toStop));
+    }
+
+    /**
+     * @param leg Leg, or null
+     * @return The leg, or null if it is null or covers the full journey
+     * @throws IllegalArgumentException if the leg runs past the last station
+     */
+    public Leg normalize(Leg leg) {
+        if (leg == null) return null;
+        if (leg.getToStop() > getSegmentCount()) {
+            throw new IllegalArgumentException("Leg " + leg + " runs past the end of the route");
+        }
+        return leg.getFromStop() == 0 && leg.getToStop() == getSegmentCount() ? null : leg;
+    }
+
+    /**
+     * @param leg Leg, or null for the full journey
+     * @return "From - To" station names
+     */
+    public String describe(Leg leg) {
+        return leg == null
+                ? stations.get(0) + " - " + stations.get(stations.size() - 1)
+                : stations.get(leg.getFromStop()) + " - " + stations.get(leg.getToStop());
+    }
+
+    private int indexOf(String station) {
+        for (int i = 0; i < stations.size(); i++) {
+            if (stations.get(i).equalsIgnoreCase(station.trim())) return i;
+        }
+        throw new IllegalArgumentException("Unknown station: " + station);
+    }
+}
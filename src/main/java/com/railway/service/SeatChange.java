@@ -0,0 +1,33 @@
+package com.railway.service;
+
+/**
+ * A change of one seat's state.
+ */
+public class SeatChange {
+    /**
+     * Seat states as shown on the seat map.
+     */
+    public enum State { AVAILABLE, BOOKED }
+
+    private final int seatId;
+    private final State oldState;
+    private final State newState;
+    private final int bookingId;
+
+    public SeatChange(int seatId, State oldState, State newState, int bookingId) {
+        this.seatId = seatId;
+        this.oldState = oldState;
+        this.newState = newState;
+        this.bookingId = bookingId;
+    }
+
+    public int getSeatId() { return seatId; }
+    public State getOldState() { return oldState; }
+    public State getNewState() { return newState; }
+    public int getBookingId() { return bookingId; }
+
+    @Override
+    public String toString() {
+        return String.format("SeatChange{seat=%d, %s->%s, bookingId=%d}", seatId, oldState, newState, bookingId);
+    }
+}
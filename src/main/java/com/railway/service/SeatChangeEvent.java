@@ -0,0 +1,24 @@
+package com.railway.service;
+
+import java.util.List;
+
+/**
+ * Seat changes from one committed operation, tagged with a monotonically increasing version.
+ */
+public class SeatChangeEvent {
+    private final long version;
+    private final List<SeatChange> changes;
+
+    public SeatChangeEvent(long version, List<SeatChange> changes) {
+        this.version = version;
+        this.changes = List.copyOf(changes);
+    }
+
+    public long getVersion() { return version; }
+    public List<SeatChange> getChanges() { return changes; }
+
+    @Override
+    public String toString() {
+        return "SeatChangeEvent{version=" + version + ", changes=" + changes + "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.railway.service;
+
+/**
+ * Receives seat change events. Events are delivered in version order on a
+ * dedicated dispatcher thread, never on the booking thread.
+ */
+@FunctionalInterface
+public interface SeatChangeListener {
+    void onSeatChange(SeatChangeEvent event);
+}
@@ -0,0 +1,85 @@
+package com.railway.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Versions seat changes and delivers them to listeners asynchronously, in order.
+ * Publishing only enqueues the event, so listener work never adds to booking latency.
+ */
+public class SeatChangePublisher {
+    private static final Logger logger = LoggerFactory.getLogger(SeatChangePublisher.class);
+    private final List<SeatChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "seat-change-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long version;
+
+    public void addListener(SeatChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return Version of the most recently published event
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks seats as booked by a booking.
+     * @param seatIds Seat IDs
+     * @param bookingId Booking ID
+     */
+    public void seatsBooked(int[] seatIds, int bookingId) {
+        publish(seatIds, SeatChange.State.AVAILABLE, SeatChange.State.BOOKED, bookingId);
+    }
+
+    /**
+     * Marks seats released by a booking as available.
+     * @param seatIds Seat IDs
+     * @param bookingId Booking ID
+     */
+    public void seatsReleased(int[] seatIds, int bookingId) {
+        publish(seatIds, SeatChange.State.BOOKED, SeatChange.State.AVAILABLE, bookingId);
+    }
+
+    /**
+     * Stops delivering events.
+     */
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    private void publish(int[] seatIds, SeatChange.State oldState, SeatChange.State newState, int bookingId) {
+        if (seatIds.length == 0) return;
+        List<SeatChange> changes = new ArrayList<>(seatIds.length);
+        for (int seatId : seatIds) {
+            changes.add(new SeatChange(seatId, oldState, newState, bookingId));
+        }
+        // Version assignment and enqueue happen together so delivery order matches versions.
+        synchronized (this) {
+            SeatChangeEvent event = new SeatChangeEvent(++version, changes);
+            if (listeners.isEmpty()) return;
+            dispatcher.execute(() -> deliver(event));
+        }
+    }
+
+    private void deliver(SeatChangeEvent event) {
+        for (SeatChangeListener listener : listeners) {
+            try {
+                listener.onSeatChange(event);
+            } catch (RuntimeException e) {
+                logger.error("Seat change listener failed for version {}: {}", event.getVersion(), e.getMessage(), e);
+            }
+        }
+    }
+}
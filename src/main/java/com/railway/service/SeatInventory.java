@@ -0,0 +1,715 @@
+package com.railway.service;
+
+import com.railway.config.AppConfig;
+import com.railway.metrics.TimedLock;
+import com.railway.model.Leg;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory, authoritative view of seat availability.
+ * Seats are split into coaches, each with its own lock and a primitive bitmap of free
+ * seats (bit set = seat free) that is updated with compare-and-set. Bookings touching
+ * different coaches run in parallel; requests spanning coaches lock them in ascending
+ * coach order. A global free-seat quota is taken before any bit is cleared, so an
+ * auto-allocation that obtained its quota is guaranteed to find enough seats.
+ * <p>
+ * Each seat also carries a mask of occupied route segments. A full-journey booking
+ * occupies every segment; a leg booking occupies only its own, so one seat can be sold
+ * for several disjoint legs. The free bitmap and quota track wholly free seats, and a leg
+ * that takes a wholly free seat takes one unit of quota like any other booking.
+ * <p>
+ * Auto-allocation keeps groups together. Every coach indexes its runs of adjacent free
+ * seats in a FreeRunTree, and a max-tree over coaches holds each coach's longest run, so
+ * a block of N adjacent seats is found in O(log n). The coach-level tree is updated
+ * without a global lock and is only a hint: the chosen coach is re-checked under its
+ * lock. Without a block, the request is filled from the longest runs first.
+ * <p>
+ * When several instances share the store, this inventory is only a cache of it. Segments
+ * known from the store rather than from this instance's own in-flight bookings (loaded at
+ * startup, lost in a seat conflict or seen by reconcile) are marked external; reconcile
+ * frees external segments once the store no longer holds them and takes segments other
+ * instances have sold since.
+ */
+public class SeatInventory {
+    private final int totalSeats;
+    private final int coachSize;
+    private final long fullMask;
+    private final Coach[] coaches;
+    private final int coachLeaves;
+    private final AtomicIntegerArray coachRuns;
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    /**
+     * Constructs an inventory with every seat free, using the configured coach size.
+     * @param totalSeats Total number of seats
+     */
+    public SeatInventory(int totalSeats) {
+        this(totalSeats, AppConfig.getInt("seats.per.coach", 72));
+    }
+
+    /**
+     * Constructs an inventory with every seat free.
+     * @param totalSeats Total number of seats
+     * @param coachSize Seats per coach (lock partition)
+     */
+    public SeatInventory(int totalSeats, int coachSize) {
+        this(totalSeats, coachSize, 1);
+    }
+
+    /**
+     * Constructs an inventory with every seat free on every segment.
+     * @param totalSeats Total number of seats
+     * @param coachSize Seats per coach (lock partition)
+     * @param segmentCount Route segments, between 1 and 63
+     */
+    public SeatInventory(int totalSeats, int coachSize, int segmentCount) {
+        if (coachSize <= 0) {
+            throw new IllegalArgumentException("Coach size must be positive");
+        }
+        if (segmentCount < 1 || segmentCount >= Leg.MAX_STOPS) {
+            throw new IllegalArgumentException("Segment count must be between 1 and " + (Leg.MAX_STOPS - 1));
+        }
+        this.totalSeats = totalSeats;
+        this.coachSize = coachSize;
+        this.fullMask = -1L >>> (64 - segmentCount);
+        this.coaches = new Coach[(totalSeats + coachSize - 1) / coachSize];
+        int capacity = 1;
+        while (capacity < coaches.length) capacity <<= 1;
+        this.coachLeaves = capacity;
+        this.coachRuns = new AtomicIntegerArray(2 * capacity);
+        for (int i = 0; i < coaches.length; i++) {
+            int firstSeat = i * coachSize + 1;
+            coaches[i] = new Coach(i, firstSeat, Math.min(coachSize, totalSeats - firstSeat + 1), fullMask);
+            coaches[i].publishRun();
+        }
+        freeCount.set(totalSeats);
+    }
+
+    /**
+     * Loads the booked seats read from the database once at startup. They are marked
+     * external, so reconcile frees them if the store later shows them free.
+     * @param bookedSeats Map of booked seat ID to booking ID (0 if unknown)
+     */
+    public void load(Map<Integer, Integer> bookedSeats) {
+        bookedSeats.forEach((seatId, bookingId) -> {
+            if (!isValidSeat(seatId)) return;
+            Coach coach = coachOf(seatId);
+            coach.lock.lock();
+            try {
+                if (coach.tryClear(seatId)) {
+                    freeCount.decrementAndGet();
+                }
+                coach.owners[seatId - coach.firstSeat] = bookingId;
+                coach.external[seatId - coach.firstSeat] = fullMask;
+            } finally {
+                coach.lock.unlock();
+            }
+        });
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public int getCoachCount() {
+        return coaches.length;
+    }
+
+    /**
+     * Gets the number of free seats not yet reserved by an in-flight booking.
+     * @return Free seat count
+     */
+    public int getFreeCount() {
+        return freeCount.get();
+    }
+
+    /**
+     * Checks whether a seat is free.
+     * @param seatId Seat ID
+     * @return true if the seat exists and is free
+     */
+    public boolean isFree(int seatId) {
+        return isValidSeat(seatId) && coachOf(seatId).isFree(seatId);
+    }
+
+    /**
+     * Checks whether the given seats are all free and distinct.
+     * @param seatIds Seat IDs
+     * @return true if every seat exists and is free
+     */
+    public boolean areFree(int[] seatIds) {
+        int[] sorted = seatIds.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (!isFree(sorted[i]) || (i > 0 && sorted[i] == sorted[i - 1])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reserves any free seats, adjacent within one coach when possible, otherwise from the
+     * longest free runs. The search starts at a per-thread coach so concurrent bookers
+     * spread across partitions. Only one coach lock is held at a time.
+     * @param count Number of seats
+     * @return Reserved seat IDs, or null if not enough seats are free
+     */
+    public int[] reserve(int count) {
+        if (count <= 0 || !acquireQuota(count)) return null;
+        int[] seats = new int[count];
+        int start = (int) (Thread.currentThread().getId() % coaches.length);
+        int found = claimRun(seats, 0, count, start);
+        if (found == 0) {
+            found = claimFragments(seats, count);
+        }
+        // Run hints can be stale under concurrent updates; finish with a plain scan.
+        boolean progress = true;
+        while (found < count && progress) {
+            int before = found;
+            for (int i = 0; i < coaches.length && found < count; i++) {
+                found = coaches[(start + i) % coaches.length].claimFree(seats, found, count);
+            }
+            progress = found > before;
+        }
+        if (found < count) {
+            release(Arrays.copyOf(seats, found));
+            freeCount.addAndGet(count - found);
+            return null;
+        }
+        Arrays.sort(seats);
+        return seats;
+    }
+
+    /**
+     * Claims a run of adjacent free seats in the first coach at or after startCoach
+     * (wrapping around) whose longest run is long enough.
+     * @return found plus length, or found if no coach has such a run
+     */
+    private int claimRun(int[] seats, int found, int length, int startCoach) {
+        for (int attempt = 0; attempt < coaches.length; attempt++) {
+            int c = firstCoachWithRun(1, 0, coachLeaves, startCoach, length);
+            if (c < 0 && startCoach > 0) {
+                c = firstCoachWithRun(1, 0, coachLeaves, 0, length);
+            }
+            if (c < 0) return found;
+            Coach coach = coaches[c];
+            coach.lock.lock();
+            try {
+                int first = coach.runs.findFirst(length);
+                if (first >= 0) {
+                    for (int i = first; i < first + length; i++) {
+                        coach.tryClear(coach.firstSeat + i);
+                        seats[found++] = coach.firstSeat + i;
+                    }
+                    return found;
+                }
+                coach.publishRun();
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Fills a request without a single block: takes the longest free run in the train
+     * until the remainder fits in one run, then the leftmost run that fits it.
+     * @return Number of seats claimed
+     */
+    private int claimFragments(int[] seats, int count) {
+        int found = 0;
+        int misses = 0;
+        while (found < count && misses < coaches.length) {
+            int remaining = count - found;
+            if (found > 0) {
+                int claimed = claimRun(seats, found, remaining, 0);
+                if (claimed > found) return claimed;
+            }
+            int c = coachWithLongestRun();
+            Coach coach = coaches[c];
+            coach.lock.lock();
+            try {
+                int length = Math.min(coach.runs.longest(), remaining);
+                int first = coach.runs.findFirst(length);
+                if (first < 0) {
+                    coach.publishRun();
+                    misses++;
+                    continue;
+                }
+                for (int i = first; i < first + length; i++) {
+                    coach.tryClear(coach.firstSeat + i);
+                    seats[found++] = coach.firstSeat + i;
+                }
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return Leftmost coach index at or after from whose longest run is at least length, or -1
+     */
+    private int firstCoachWithRun(int node, int nodeStart, int span, int from, int length) {
+        if (nodeStart + span <= from || coachRuns.get(node) < length) return -1;
+        if (node >= coachLeaves) return nodeStart < coaches.length ? nodeStart : -1;
+        int half = span >> 1;
+        int left = firstCoachWithRun(2 * node, nodeStart, half, from, length);
+        return left >= 0 ? left : firstCoachWithRun(2 * node + 1, nodeStart + half, half, from, length);
+    }
+
+    private int coachWithLongestRun() {
+        int node = 1;
+        while (node < coachLeaves) {
+            node = coachRuns.get(2 * node) >= coachRuns.get(2 * node + 1) ? 2 * node : 2 * node + 1;
+        }
+        return Math.min(node - coachLeaves, coaches.length - 1);
+    }
+
+    /**
+     * Reserves exactly the given seats, all or nothing. Coaches are locked in ascending
+     * order, so overlapping multi-coach requests cannot deadlock.
+     * @param seatIds Seat IDs
+     * @return true if every seat was reserved
+     */
+    public boolean claim(int[] seatIds) {
+        int[] sorted = seatIds.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (!isValidSeat(sorted[i]) || (i > 0 && sorted[i] == sorted[i - 1])) return false;
+        }
+        if (sorted.length == 0 || !acquireQuota(sorted.length)) return false;
+        Coach[] locked = lockCoaches(sorted);
+        int cleared = 0;
+        try {
+            for (int seatId : sorted) {
+                if (!coachOf(seatId).tryClear(seatId)) break;
+                cleared++;
+            }
+            if (cleared < sorted.length) {
+                for (int i = 0; i < cleared; i++) {
+                    coachOf(sorted[i]).setFree(sorted[i]);
+                }
+            }
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                locked[i].lock.unlock();
+            }
+        }
+        if (cleared < sorted.length) {
+            freeCount.addAndGet(sorted.length);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the booking that owns previously reserved seats.
+     * @param seatIds Reserved seat IDs
+     * @param bookingId Booking ID
+     */
+    public void assign(int[] seatIds, int bookingId) {
+        for (int seatId : seatIds) {
+            Coach coach = coachOf(seatId);
+            coach.lock.lock();
+            try {
+                coach.owners[seatId - coach.firstSeat] = bookingId;
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Frees reserved or booked seats.
+     * @param seatIds Seat IDs
+     */
+    public void release(int[] seatIds) {
+        for (int seatId : seatIds) {
+            Coach coach = coachOf(seatId);
+            coach.lock.lock();
+            try {
+                coach.owners[seatId - coach.firstSeat] = 0;
+                if (!coach.isFree(seatId)) {
+                    coach.setFree(seatId);
+                    freeCount.incrementAndGet();
+                }
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Counts seats free on every segment of a leg, without taking any lock.
+     * @param leg Leg
+     * @return Seats that could be booked for the leg
+     */
+    public int getFreeCount(Leg leg) {
+        long mask = leg.segmentMask();
+        int free = 0;
+        for (Coach coach : coaches) {
+            for (int i = 0; i < coach.size; i++) {
+                if ((coach.occupied.get(i) & mask) == 0) free++;
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Reserves any seats free on a leg. Seats already sold for other legs are used
+     * first, so wholly free seats stay available for full-journey bookings.
+     * @param count Number of seats
+     * @param leg Leg
+     * @return Reserved seat IDs, or null if not enough seats are free on the leg
+     */
+    public int[] reserve(int count, Leg leg) {
+        if (count <= 0) return null;
+        long mask = checkLeg(leg);
+        int[] seats = new int[count];
+        int found = 0;
+        int start = (int) (Thread.currentThread().getId() % coaches.length);
+        for (int pass = 0; pass < 2 && found < count; pass++) {
+            for (int i = 0; i < coaches.length && found < count; i++) {
+                found = claimLeg(coaches[(start + i) % coaches.length], seats, found, count, mask, pass == 1);
+            }
+        }
+        if (found < count) {
+            release(Arrays.copyOf(seats, found), leg);
+            return null;
+        }
+        Arrays.sort(seats);
+        return seats;
+    }
+
+    /**
+     * Reserves exactly the given seats for a leg, all or nothing.
+     * @param seatIds Seat IDs
+     * @param leg Leg
+     * @return true if every seat was free on the leg and is now reserved
+     */
+    public boolean claim(int[] seatIds, Leg leg) {
+        long mask = checkLeg(leg);
+        int[] sorted = seatIds.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (!isValidSeat(sorted[i]) || (i > 0 && sorted[i] == sorted[i - 1])) return false;
+        }
+        if (sorted.length == 0) return false;
+        Coach[] locked = lockCoaches(sorted);
+        try {
+            int wholeSeats = 0;
+            for (int seatId : sorted) {
+                Coach coach = coachOf(seatId);
+                long occupied = coach.occupied.get(seatId - coach.firstSeat);
+                if ((occupied & mask) != 0) return false;
+                if (occupied == 0) wholeSeats++;
+            }
+            if (wholeSeats > 0 && !acquireQuota(wholeSeats)) return false;
+            for (int seatId : sorted) {
+                coachOf(seatId).occupy(seatId, mask);
+            }
+            return true;
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                locked[i].lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Frees a leg on reserved or booked seats.
+     * @param seatIds Seat IDs
+     * @param leg Leg
+     * @return Seats that are now free on every segment
+     */
+    public int[] release(int[] seatIds, Leg leg) {
+        long mask = leg.segmentMask();
+        int[] freed = new int[seatIds.length];
+        int count = 0;
+        for (int seatId : seatIds) {
+            Coach coach = coachOf(seatId);
+            coach.lock.lock();
+            try {
+                int i = seatId - coach.firstSeat;
+                long remaining = coach.occupied.get(i) & ~mask;
+                if (remaining == 0 && !coach.isFree(seatId)) {
+                    coach.setFree(seatId);
+                    freeCount.incrementAndGet();
+                    freed[count++] = seatId;
+                } else {
+                    coach.occupied.set(i, remaining);
+                    coach.external[i] &= remaining;
+                }
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+        return Arrays.copyOf(freed, count);
+    }
+
+    /**
+     * Marks reserved or booked segments as held in the store by someone else, so that
+     * reconcile frees them once the store does. Used for seats that lost a conflict in
+     * the store and for bookings loaded at startup.
+     * @param seatIds Seat IDs
+     * @param leg Leg, or null for the full journey
+     */
+    public void markExternal(int[] seatIds, Leg leg) {
+        long mask = leg == null ? fullMask : checkLeg(leg);
+        for (int seatId : seatIds) {
+            if (!isValidSeat(seatId)) continue;
+            Coach coach = coachOf(seatId);
+            coach.lock.lock();
+            try {
+                int i = seatId - coach.firstSeat;
+                coach.external[i] |= mask & coach.occupied.get(i);
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Brings external segments in line with the store. Segments the store holds but this
+     * inventory shows free are taken and marked external; external segments the store no
+     * longer holds are freed. Segments reserved by this instance and not marked external
+     * are left alone, so in-flight bookings are never disturbed. The store state may be
+     * slightly stale; the store's conditional seat claims stay the source of truth.
+     * @param bookedSeats Seats booked for the full journey in the store
+     * @param heldLegs Legs held on each seat in the store
+     * @return Number of seats whose state changed
+     */
+    public int reconcile(Set<Integer> bookedSeats, Map<Integer, List<Leg>> heldLegs) {
+        int changed = 0;
+        for (Coach coach : coaches) {
+            coach.lock.lock();
+            try {
+                for (int i = 0; i < coach.size; i++) {
+                    int seatId = coach.firstSeat + i;
+                    long stored = bookedSeats.contains(seatId) ? fullMask : 0;
+                    for (Leg leg : heldLegs.getOrDefault(seatId, List.of())) {
+                        stored |= leg.segmentMask() & fullMask;
+                    }
+                    if (coach.reconcile(i, stored)) changed++;
+                }
+                coach.publishRun();
+            } finally {
+                coach.lock.unlock();
+            }
+        }
+        return changed;
+    }
+
+    private int claimLeg(Coach coach, int[] seats, int found, int count, long mask, boolean wholeSeats) {
+        coach.lock.lock();
+        try {
+            for (int i = 0; i < coach.size && found < count; i++) {
+                long occupied = coach.occupied.get(i);
+                if ((occupied & mask) != 0 || (occupied == 0) != wholeSeats) continue;
+                if (occupied == 0 && !acquireQuota(1)) return found;
+                coach.occupy(coach.firstSeat + i, mask);
+                seats[found++] = coach.firstSeat + i;
+            }
+            return found;
+        } finally {
+            coach.lock.unlock();
+        }
+    }
+
+    private long checkLeg(Leg leg) {
+        long mask = leg.segmentMask();
+        if ((mask & ~fullMask) != 0) {
+            throw new IllegalArgumentException("Leg " + leg + " runs past the end of the route");
+        }
+        return mask;
+    }
+
+    /**
+     * Builds the seat map display without taking any lock.
+     * @return "Available" or "Booked" (on any segment) per seat, indexed by seat ID - 1
+     */
+    public String[] toSeatMap() {
+        String[] seatMap = new String[totalSeats];
+        for (int seatId = 1; seatId <= totalSeats; seatId++) {
+            seatMap[seatId - 1] = coachOf(seatId).isFree(seatId) ? "Available" : "Booked";
+        }
+        return seatMap;
+    }
+
+    private boolean acquireQuota(int count) {
+        while (true) {
+            int current = freeCount.get();
+            if (current < count) return false;
+            if (freeCount.compareAndSet(current, current - count)) return true;
+        }
+    }
+
+    private Coach[] lockCoaches(int[] sortedSeatIds) {
+        Coach[] locked = new Coach[sortedSeatIds.length];
+        int count = 0;
+        for (int seatId : sortedSeatIds) {
+            Coach coach = coachOf(seatId);
+            if (count == 0 || locked[count - 1] != coach) {
+                coach.lock.lock();
+                locked[count++] = coach;
+            }
+        }
+        return Arrays.copyOf(locked, count);
+    }
+
+    private boolean isValidSeat(int seatId) {
+        return seatId >= 1 && seatId <= totalSeats;
+    }
+
+    private Coach coachOf(int seatId) {
+        return coaches[(seatId - 1) / coachSize];
+    }
+
+    /**
+     * One lock partition. Bits and segment masks are read without the lock; writers
+     * hold the lock and flip bits with compare-and-set. A seat's free bit is set exactly
+     * when its segment mask is zero.
+     */
+    private final class Coach {
+        final int index;
+        final int firstSeat;
+        final int size;
+        final long fullMask;
+        final ReentrantLock lock = new TimedLock("coach");
+        final AtomicLongArray freeBits;
+        final AtomicLongArray occupied;
+        final FreeRunTree runs;
+        final int[] owners;
+        final long[] external;
+
+        Coach(int index, int firstSeat, int size, long fullMask) {
+            this.index = index;
+            this.firstSeat = firstSeat;
+            this.size = size;
+            this.fullMask = fullMask;
+            this.freeBits = new AtomicLongArray((size + 63) >>> 6);
+            this.occupied = new AtomicLongArray(size);
+            this.runs = new FreeRunTree(size);
+            this.owners = new int[size];
+            this.external = new long[size];
+            for (int i = 0; i < size; i++) {
+                freeBits.getAndAccumulate(i >>> 6, 1L << (i & 63), (a, b) -> a | b);
+            }
+        }
+
+        boolean isFree(int seatId) {
+            int i = seatId - firstSeat;
+            return (freeBits.get(i >>> 6) & (1L << (i & 63))) != 0;
+        }
+
+        boolean tryClear(int seatId) {
+            int i = seatId - firstSeat;
+            long mask = 1L << (i & 63);
+            while (true) {
+                long bits = freeBits.get(i >>> 6);
+                if ((bits & mask) == 0) return false;
+                if (freeBits.compareAndSet(i >>> 6, bits, bits & ~mask)) {
+                    occupied.set(i, fullMask);
+                    runs.set(i, false);
+                    publishRun();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Adds segments to a seat that is free on all of them.
+         */
+        void occupy(int seatId, long segments) {
+            int i = seatId - firstSeat;
+            long current = occupied.get(i);
+            if (current == 0) {
+                tryClear(seatId);
+            }
+            occupied.set(i, current | segments);
+        }
+
+        void setFree(int seatId) {
+            int i = seatId - firstSeat;
+            occupied.set(i, 0);
+            external[i] = 0;
+            freeBits.getAndAccumulate(i >>> 6, 1L << (i & 63), (a, b) -> a | b);
+            runs.set(i, true);
+            publishRun();
+        }
+
+        /**
+         * Applies the store's segments to one seat. Called with the lock held.
+         * @return true if the seat changed
+         */
+        boolean reconcile(int i, long stored) {
+            long current = occupied.get(i);
+            long known = external[i] & current;
+            long taken = stored & ~current;
+            long target = (known & stored) | taken;
+            if (target == known && known == external[i]) return false;
+            long next = (current & ~known) | target;
+            int seatId = firstSeat + i;
+            if (current == 0) {
+                if (!acquireQuota(1)) return false;
+                tryClear(seatId);
+                owners[i] = 0;
+                occupied.set(i, next);
+            } else if (next == 0) {
+                owners[i] = 0;
+                setFree(seatId);
+                freeCount.incrementAndGet();
+                return true;
+            } else {
+                occupied.set(i, next);
+            }
+            external[i] = target;
+            return true;
+        }
+
+        /**
+         * Writes this coach's longest free run into the coach-level tree. Called with
+         * the lock held; recomputes the whole path so stale ancestors are repaired.
+         */
+        void publishRun() {
+            int node = coachLeaves + index;
+            coachRuns.set(node, runs.longest());
+            for (node >>= 1; node > 0; node >>= 1) {
+                coachRuns.set(node, Math.max(coachRuns.get(2 * node), coachRuns.get(2 * node + 1)));
+            }
+        }
+
+        int claimFree(int[] seats, int found, int count) {
+            lock.lock();
+            try {
+                for (int word = 0; word < freeBits.length() && found < count; word++) {
+                    long bits = freeBits.get(word);
+                    while (bits != 0 && found < count) {
+                        long lowest = bits & -bits;
+                        if (freeBits.compareAndSet(word, bits, bits & ~lowest)) {
+                            int seat = (word << 6) + Long.numberOfTrailingZeros(lowest);
+                            occupied.set(seat, fullMask);
+                            runs.set(seat, false);
+                            seats[found++] = firstSeat + seat;
+                            bits &= ~lowest;
+                        } else {
+                            bits = freeBits.get(word);
+                        }
+                    }
+                }
+                publishRun();
+                return found;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
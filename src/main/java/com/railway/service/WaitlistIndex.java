@@ -0,0 +1,126 @@
+package com.railway.service;
+
+import com.railway.model.Booking;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of waitlisted bookings.
+ * Bookings are bucketed by seats requested; each bucket keeps FIFO (booking ID) order.
+ * A min-tree over the bucket heads answers "oldest waitlisted booking that fits in K
+ * free seats" in O(log maxSeats), and add/remove cost O(log n).
+ */
+public class WaitlistIndex {
+    private static final int NONE = Integer.MAX_VALUE;
+    private final int maxSeats;
+    private final TreeMap<Integer, Booking>[] buckets;
+    private final int[] headTree;
+    private final int leaves;
+    private int size;
+
+    /**
+     * Constructs an empty index.
+     * @param maxSeats Largest number of seats a single booking may request
+     */
+    @SuppressWarnings("unchecked")
+    public WaitlistIndex(int maxSeats) {
+        this.maxSeats = maxSeats;
+        this.buckets = (TreeMap<Integer, Booking>[]) new TreeMap<?, ?>[maxSeats + 1];
+        for (int i = 1; i <= maxSeats; i++) {
+            buckets[i] = new TreeMap<>();
+        }
+        int capacity = 1;
+        while (capacity < maxSeats) capacity <<= 1;
+        this.leaves = capacity;
+        this.headTree = new int[2 * capacity];
+        Arrays.fill(headTree, NONE);
+    }
+
+    /**
+     * Replaces the index contents, e.g. with the waitlist read at startup.
+     * @param bookings Waitlisted bookings
+     */
+    public synchronized void rebuild(Collection<Booking> bookings) {
+        for (int i = 1; i <= maxSeats; i++) {
+            buckets[i].clear();
+        }
+        Arrays.fill(headTree, NONE);
+        size = 0;
+        bookings.forEach(this::add);
+    }
+
+    /**
+     * Adds a waitlisted booking.
+     * @param booking Booking with its ID and seats requested
+     */
+    public synchronized void add(Booking booking) {
+        int seats = booking.getSeatsBooked();
+        if (seats < 1 || seats > maxSeats) {
+            throw new IllegalArgumentException("Waitlisted booking requests " + seats + " seats");
+        }
+        if (buckets[seats].put(booking.getId(), booking) == null) {
+            size++;
+        }
+        updateHead(seats);
+    }
+
+    /**
+     * Removes a booking that left the waitlist.
+     * @param booking Booking to remove
+     * @return true if it was waitlisted
+     */
+    public synchronized boolean remove(Booking booking) {
+        int seats = booking.getSeatsBooked();
+        if (seats < 1 || seats > maxSeats || buckets[seats].remove(booking.getId()) == null) {
+            return false;
+        }
+        size--;
+        updateHead(seats);
+        return true;
+    }
+
+    /**
+     * Finds the oldest waitlisted booking that fits in the given number of free seats.
+     * @param freeSeats Free seats
+     * @return Booking, or null if none fits
+     */
+    public synchronized Booking firstFitting(int freeSeats) {
+        int limit = Math.min(freeSeats, maxSeats);
+        if (limit < 1) return null;
+        int best = NONE;
+        int bestBucket = -1;
+        // Prefix minimum over leaves [1, limit], walking up from the right boundary.
+        int lo = leaves, hi = leaves + limit;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                if (headTree[lo] < best) { best = headTree[lo]; bestBucket = lo; }
+                lo++;
+            }
+            if ((hi & 1) == 1) {
+                hi--;
+                if (headTree[hi] < best) { best = headTree[hi]; bestBucket = hi; }
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        if (best == NONE) return null;
+        while (bestBucket < leaves) {
+            bestBucket = headTree[2 * bestBucket] == best ? 2 * bestBucket : 2 * bestBucket + 1;
+        }
+        return buckets[bestBucket - leaves + 1].get(best);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void updateHead(int seats) {
+        int node = leaves + seats - 1;
+        headTree[node] = buckets[seats].isEmpty() ? NONE : buckets[seats].firstKey();
+        for (node >>= 1; node > 0; node >>= 1) {
+            headTree[node] = Math.min(headTree[2 * node], headTree[2 * node + 1]);
+        }
+    }
+}
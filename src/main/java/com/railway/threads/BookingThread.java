@@ -13,25 +13,42 @@ public class BookingThread extends Thread {
     private final String userName;
     private final int requestedSeats;
     private final int[] selectedSeats;
+    private final boolean async;
 
     /**
-     * Constructs a booking thread.
+     * Constructs a booking thread using the synchronous booking API.
      * @param bookingSystem Booking system instance
      * @param userName User name
      * @param requestedSeats Number of seats
      * @param selectedSeats Specific seats (optional)
      */
     public BookingThread(RailwayTicketBookingSystem bookingSystem, String userName, int requestedSeats, int[] selectedSeats) {
+        this(bookingSystem, userName, requestedSeats, selectedSeats, false);
+    }
+
+    /**
+     * Constructs a booking thread.
+     * @param bookingSystem Booking system instance
+     * @param userName User name
+     * @param requestedSeats Number of seats
+     * @param selectedSeats Specific seats (optional)
+     * @param async true to book through the group-commit pipeline
+     */
+    public BookingThread(RailwayTicketBookingSystem bookingSystem, String userName, int requestedSeats, int[] selectedSeats,
+                         boolean async) {
         this.bookingSystem = bookingSystem;
         this.userName = userName;
         this.requestedSeats = requestedSeats;
         this.selectedSeats = selectedSeats != null ? selectedSeats.clone() : null;
+        this.async = async;
     }
 
     @Override
     public void run() {
         try {
-            boolean success = bookingSystem.bookTicket(userName, requestedSeats, selectedSeats);
+            boolean success = async
+                    ? bookingSystem.submitBooking(userName, requestedSeats, selectedSeats).join().isSuccess()
+                    : bookingSystem.bookTicket(userName, requestedSeats, selectedSeats);
             if (success) {
                 logger.info("Booking thread completed for {}: {} seats.", userName, requestedSeats);
             } else {
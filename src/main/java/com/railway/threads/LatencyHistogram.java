@@ -0,0 +1,124 @@
+package com.railway.threads;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe log-linear latency histogram in microseconds.
+ * Values below 64 are counted exactly; above that each power of two is split into 32
+ * sub-buckets, so reported percentiles are within about 3% of the recorded value.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 32;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(EXACT + 58 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     * @param micros Latency in microseconds (negative values count as 0)
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Adds all values recorded by another histogram.
+     * @param other Histogram to merge
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Gets the latency at or below which the given percentage of values fall.
+     * @param percentile Percentile, e.g. 99.9
+     * @return Upper bound of the matching bucket in microseconds, capped at the maximum
+     */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Renders counts per power-of-two latency range as a text bar chart.
+     * @return One line per non-empty range
+     */
+    public String toDistribution() {
+        long[] octaves = new long[64];
+        for (int i = 0; i < counts.length(); i++) {
+            long c = counts.get(i);
+            if (c != 0) octaves[64 - Long.numberOfLeadingZeros(upperBoundOf(i))] += c;
+        }
+        long peak = 0;
+        for (long c : octaves) peak = Math.max(peak, c);
+        StringBuilder sb = new StringBuilder();
+        for (int bits = 0; bits < octaves.length; bits++) {
+            if (octaves[bits] == 0) continue;
+            long low = bits == 0 ? 0 : 1L << (bits - 1);
+            long high = bits == 0 ? 0 : (1L << bits) - 1;
+            int bar = (int) Math.max(1, 50 * octaves[bits] / peak);
+            sb.append(String.format("%12s - %-12s %10d %s%n", formatMicros(low), formatMicros(high), octaves[bits],
+                    "#".repeat(bar)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats a latency for display.
+     * @param micros Latency in microseconds
+     * @return e.g. "850us", "12.40ms" or "1.50s"
+     */
+    public static String formatMicros(long micros) {
+        if (micros < 1000) return micros + "us";
+        if (micros < 1_000_000) return String.format("%.2fms", micros / 1000.0);
+        return String.format("%.2fs", micros / 1_000_000.0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < EXACT) return index;
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long sub = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,251 @@
+package com.railway.threads;
+
+import com.railway.service.RailwayTicketBookingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless open-loop load generator for capacity planning.
+ * Requests are scheduled at a fixed arrival rate independent of how fast the system
+ * answers, and latency is measured from each request's intended start time, so a
+ * stalled system shows up as queueing delay instead of silently lowering the offered
+ * load (coordinated omission). Requests started during warm-up are not recorded.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private final RailwayTicketBookingSystem bookingSystem;
+    private final Options options;
+    private final OperationStats[] operations = {
+            new OperationStats("book"), new OperationStats("cancel"), new OperationStats("view")};
+
+    /**
+     * Constructs a load generator.
+     * @param bookingSystem Booking system under load
+     * @param options Load options
+     */
+    public LoadGenerator(RailwayTicketBookingSystem bookingSystem, Options options) {
+        this.bookingSystem = bookingSystem;
+        this.options = options;
+    }
+
+    /**
+     * Runs warm-up and measurement, then prints the report.
+     * @param out Report destination
+     * @throws InterruptedException if interrupted while waiting for requests to finish
+     */
+    public void run(PrintStream out) throws InterruptedException {
+        RequestExecutor workers = new RequestExecutor(options.executorMode, options.workers, options.dbPermits);
+        long intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / options.rate);
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        AtomicLong lastCompletion = new AtomicLong(measureStart);
+        logger.info("Load test: {} req/s for {}s after {}s warm-up, {} users, {} threads.", options.rate,
+                options.durationSeconds, options.warmupSeconds, options.users,
+                workers.isVirtual() ? "virtual" : options.workers + " platform");
+
+        long scheduled = 0;
+        for (long intended = start; intended < end; intended = start + ++scheduled * intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = intended;
+            boolean measured = intendedStart >= measureStart;
+            workers.execute(() -> execute(intendedStart, measured, lastCompletion));
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(Math.max(60, options.durationSeconds), TimeUnit.SECONDS)) {
+            out.println("Warning: requests still running after the drain timeout; they are not included.");
+            workers.shutdownNow();
+        }
+        printReport(out, (lastCompletion.get() - measureStart) / 1e9, workers.isVirtual());
+    }
+
+    private void execute(long intendedStart, boolean measured, AtomicLong lastCompletion) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        int type = roll < options.bookPercent ? 0 : roll < options.bookPercent + options.cancelPercent ? 1 : 2;
+        String userName = "Load User " + random.nextInt(options.users);
+        int seats = 1 + random.nextInt(options.maxSeats);
+        boolean ok;
+        Throwable error = null;
+        try {
+            ok = switch (type) {
+                case 0 -> options.async
+                        ? bookingSystem.submitBooking(userName, seats, null).join().isSuccess()
+                        : bookingSystem.bookTicket(userName, seats, null);
+                case 1 -> bookingSystem.cancelBooking(userName, seats);
+                default -> bookingSystem.displaySeatMap().length > 0;
+            };
+        } catch (RuntimeException e) {
+            ok = false;
+            error = e;
+        }
+        long now = System.nanoTime();
+        if (!measured) return;
+        OperationStats stats = operations[type];
+        stats.latency.record((now - intendedStart) / 1000);
+        if (error != null) {
+            stats.errors.incrementAndGet();
+            logger.debug("Load request failed: {}", error.getMessage());
+        } else if (!ok) {
+            stats.failures.incrementAndGet();
+        }
+        lastCompletion.accumulateAndGet(now, Math::max);
+    }
+
+    private void printReport(PrintStream out, double elapsedSeconds, boolean virtualThreads) {
+        LatencyHistogram all = new LatencyHistogram();
+        long failures = 0, errors = 0;
+        out.println();
+        out.println("=== Load Test Report ===");
+        out.printf("Offered rate: %d req/s, measured for %ds after %ds warm-up, %d users%n", options.rate,
+                options.durationSeconds, options.warmupSeconds, options.users);
+        out.printf("Executor: %s, %d database permits%n",
+                virtualThreads ? "virtual threads" : options.workers + " platform threads", options.dbPermits);
+        out.printf("%-8s %10s %10s %10s %10s %10s %10s %10s%n", "op", "count", "failed", "errors", "p50", "p99",
+                "p99.9", "max");
+        for (OperationStats stats : operations) {
+            LatencyHistogram h = stats.latency;
+            all.add(h);
+            failures += stats.failures.get();
+            errors += stats.errors.get();
+            out.printf("%-8s %10d %10d %10d %10s %10s %10s %10s%n", stats.name, h.getCount(), stats.failures.get(),
+                    stats.errors.get(), LatencyHistogram.formatMicros(h.percentile(50)),
+                    LatencyHistogram.formatMicros(h.percentile(99)), LatencyHistogram.formatMicros(h.percentile(99.9)),
+                    LatencyHistogram.formatMicros(h.getMax()));
+        }
+        out.printf("Total: %d requests, %d failed (returned false), %d errors (exceptions)%n", all.getCount(),
+                failures, errors);
+        out.printf("Throughput: %.1f req/s completed%n", elapsedSeconds > 0 ? all.getCount() / elapsedSeconds : 0.0);
+        out.printf("Latency: mean %s, p50 %s, p90 %s, p99 %s, p99.9 %s, p99.99 %s, max %s%n",
+                LatencyHistogram.formatMicros(Math.round(all.getMean())),
+                LatencyHistogram.formatMicros(all.percentile(50)), LatencyHistogram.formatMicros(all.percentile(90)),
+                LatencyHistogram.formatMicros(all.percentile(99)), LatencyHistogram.formatMicros(all.percentile(99.9)),
+                LatencyHistogram.formatMicros(all.percentile(99.99)), LatencyHistogram.formatMicros(all.getMax()));
+        out.println("Latency distribution (from intended start):");
+        out.print(all.toDistribution());
+    }
+
+    private static final class OperationStats {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        OperationStats(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Load test options, parsed from "--name=value" command-line arguments.
+     */
+    public static final class Options {
+        public static final String USAGE = String.join(System.lineSeparator(),
+                "Usage: --load [options]",
+                "  --rate=N        arrival rate in requests per second (default 100)",
+                "  --duration=S    measured run time in seconds (default 60)",
+                "  --warmup=S      warm-up time in seconds, not recorded (default 10)",
+                "  --users=N       number of distinct users (default 1000)",
+                "  --mix=B,C,V     percentage of book, cancel and view requests (default 60,20,20)",
+                "  --max-seats=N   maximum seats per book or cancel request, 1-10 (default 3)",
+                "  --executor=M    auto, virtual or platform threads (default executor.mode)",
+                "  --workers=N     platform threads issuing requests (default 64)",
+                "  --db-permits=N  requests doing database work at once (default executor.db.permits)",
+                "  --async         book through the group-commit pipeline");
+
+        int rate = 100;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        int users = 1000;
+        int bookPercent = 60;
+        int cancelPercent = 20;
+        int maxSeats = 3;
+        int workers = 64;
+        RequestExecutor.Mode executorMode = RequestExecutor.configuredMode();
+        int dbPermits = RequestExecutor.configuredDbPermits();
+        boolean async;
+
+        /**
+         * Parses command-line options.
+         * @param args Arguments such as "--rate=500"; unknown arguments are rejected
+         * @return Options
+         * @throws IllegalArgumentException if an option is unknown or out of range
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (arg.equals("--load")) continue;
+                if (arg.equals("--async")) {
+                    options.async = true;
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "rate" -> options.rate = parsePositive(name, value);
+                    case "duration" -> options.durationSeconds = parsePositive(name, value);
+                    case "warmup" -> options.warmupSeconds = parseInt(name, value, 0);
+                    case "users" -> options.users = parsePositive(name, value);
+                    case "max-seats" -> options.maxSeats = parsePositive(name, value);
+                    case "workers" -> options.workers = parsePositive(name, value);
+                    case "db-permits" -> options.dbPermits = parsePositive(name, value);
+                    case "executor" -> {
+                        try {
+                            options.executorMode = RequestExecutor.Mode.valueOf(value.toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("--executor must be auto, virtual or platform");
+                        }
+                    }
+                    case "mix" -> {
+                        String[] parts = value.split(",");
+                        if (parts.length != 3) {
+                            throw new IllegalArgumentException("--mix needs three percentages: book,cancel,view");
+                        }
+                        int book = parseInt(name, parts[0].trim(), 0);
+                        int cancel = parseInt(name, parts[1].trim(), 0);
+                        int view = parseInt(name, parts[2].trim(), 0);
+                        if (book + cancel + view != 100) {
+                            throw new IllegalArgumentException("--mix percentages must add up to 100");
+                        }
+                        options.bookPercent = book;
+                        options.cancelPercent = cancel;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (options.maxSeats > 10) {
+                throw new IllegalArgumentException("--max-seats must be between 1 and 10");
+            }
+            return options;
+        }
+
+        private static int parsePositive(String name, String value) {
+            return parseInt(name, value, 1);
+        }
+
+        private static int parseInt(String name, String value, int min) {
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed < min) {
+                    throw new IllegalArgumentException("--" + name + " must be at least " + min);
+                }
+                return parsed;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+            }
+        }
+    }
+}
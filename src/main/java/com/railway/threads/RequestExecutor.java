@@ -0,0 +1,204 @@
+package com.railway.threads;
+
+import com.railway.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs booking, cancellation and query requests.
+ * On Java 21+ each request gets its own virtual thread, so thousands of requests can be
+ * in flight while blocked on JDBC without exhausting platform threads; on Java 17 a
+ * fixed platform-thread pool is used instead. Either way, at most dbPermits requests
+ * run their database work at once, which keeps the rest queued cheaply instead of
+ * piling up on the connection pool.
+ */
+public class RequestExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutor.class);
+    private final ExecutorService executor;
+    private final Semaphore dbPermits;
+    private final boolean virtual;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Execution mode.
+     */
+    public enum Mode {
+        /** Virtual threads when the JVM supports them, otherwise platform threads. */
+        AUTO,
+        /** Virtual threads; fails on JVMs before Java 21. */
+        VIRTUAL,
+        /** Fixed pool of platform threads. */
+        PLATFORM
+    }
+
+    /**
+     * Constructs an executor.
+     * @param mode Execution mode
+     * @param platformThreads Pool size when platform threads are used
+     * @param dbPermits Maximum requests doing database work at once
+     */
+    public RequestExecutor(Mode mode, int platformThreads, int dbPermits) {
+        ExecutorService virtualExecutor = mode == Mode.PLATFORM ? null : newVirtualThreadExecutor();
+        if (virtualExecutor == null && mode == Mode.VIRTUAL) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later");
+        }
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(platformThreads, new PlatformFactory());
+        this.dbPermits = new Semaphore(dbPermits);
+        logger.info("Request executor using {} with {} database permits.",
+                virtual ? "virtual threads" : platformThreads + " platform threads", dbPermits);
+    }
+
+    /**
+     * Constructs an executor from the executor.* settings.
+     * @return Request executor
+     */
+    public static RequestExecutor fromConfig() {
+        return new RequestExecutor(configuredMode(), AppConfig.getInt("executor.platform.threads", 32),
+                configuredDbPermits());
+    }
+
+    /**
+     * @return Mode from executor.mode (default auto)
+     */
+    public static Mode configuredMode() {
+        return Mode.valueOf(AppConfig.getString("executor.mode", "auto").trim().toUpperCase());
+    }
+
+    /**
+     * @return Permits from executor.db.permits, defaulting to the connection pool size
+     */
+    public static int configuredDbPermits() {
+        return AppConfig.getInt("executor.db.permits", AppConfig.getInt("db.pool.max.size", 10));
+    }
+
+    /**
+     * Runs a request that uses the database.
+     * @param task Request
+     * @param <T> Result type
+     * @return Future completed with the task's result, or exceptionally if it throws
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    dbPermits.acquire();
+                    try {
+                        future.complete(task.call());
+                    } finally {
+                        dbPermits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs a request that uses the database.
+     * @param task Request
+     * @return Future completed when the task finishes
+     */
+    public CompletableFuture<Void> execute(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * @return Requests submitted and not yet finished, including those waiting for a permit
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return Requests waiting for a database permit
+     */
+    public int getWaitingForDatabase() {
+        return dbPermits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting requests; submitted ones still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for submitted requests to finish after shutdown.
+     * @param timeout Maximum wait
+     * @param unit Unit of timeout
+     * @return true if all requests finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Interrupts running requests and drops queued ones.
+     */
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Creates Executors.newThreadPerTaskExecutor with a virtual thread factory, looked up
+     * reflectively so the class still compiles and runs on Java 17.
+     * @return Executor, or null if virtual threads are unavailable
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "request-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads unavailable: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static final class PlatformFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "request-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.railway.ui;
+
+import com.railway.service.SeatChange;
+import com.railway.service.SeatChangeEvent;
+import com.railway.service.SeatChangeListener;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects seat change events and applies them on the EDT at most once per frame interval.
+ * Bursts are coalesced to the latest change per seat, and events at or below the version
+ * already shown are skipped.
+ */
+public class CoalescingSeatMapUpdater implements SeatChangeListener {
+    private final Consumer<Map<Integer, SeatChange>> applier;
+    private final Timer flushTimer;
+    private final Object pendingLock = new Object();
+    private Map<Integer, SeatChange> pending = new HashMap<>();
+    private long pendingVersion;
+    private long appliedVersion;
+    private boolean scheduled;
+
+    /**
+     * @param frameIntervalMs Minimum time between two refreshes
+     * @param applier Applies changed seats; always called on the EDT
+     */
+    public CoalescingSeatMapUpdater(int frameIntervalMs, Consumer<Map<Integer, SeatChange>> applier) {
+        this.applier = applier;
+        this.flushTimer = new Timer(frameIntervalMs, e -> flush());
+        this.flushTimer.setRepeats(false);
+    }
+
+    /**
+     * Records the version already reflected by a full refresh. Must be called on the EDT.
+     * @param version Seat change version
+     */
+    public void markRefreshed(long version) {
+        appliedVersion = Math.max(appliedVersion, version);
+    }
+
+    @Override
+    public void onSeatChange(SeatChangeEvent event) {
+        boolean schedule;
+        synchronized (pendingLock) {
+            for (SeatChange change : event.getChanges()) {
+                pending.put(change.getSeatId(), change);
+            }
+            pendingVersion = Math.max(pendingVersion, event.getVersion());
+            schedule = !scheduled;
+            scheduled = true;
+        }
+        if (schedule) {
+            SwingUtilities.invokeLater(flushTimer::restart);
+        }
+    }
+
+    private void flush() {
+        Map<Integer, SeatChange> changes;
+        long version;
+        synchronized (pendingLock) {
+            changes = pending;
+            version = pendingVersion;
+            pending = new HashMap<>();
+            scheduled = false;
+        }
+        if (version <= appliedVersion || changes.isEmpty()) return;
+        appliedVersion = version;
+        applier.accept(changes);
+    }
+}
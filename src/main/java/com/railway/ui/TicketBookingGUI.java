@@ -1,20 +1,31 @@
 package com.railway.ui;
 
 import com.formdev.flatlaf.FlatLightLaf;
-import com.railway.dao.BookingDAO;
+import com.railway.config.AppConfig;
+import com.railway.export.BookingCsvExporter;
 import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import com.railway.model.BookingStats;
+import com.railway.model.ReadSnapshot;
 import com.railway.service.RailwayTicketBookingSystem;
+import com.railway.service.SeatChange;
 import com.railway.threads.BookingThread;
+import com.railway.threads.RequestExecutor;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.PrintWriter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * GUI for the Railway Ticket Booking System.
@@ -25,7 +36,15 @@ public class TicketBookingGUI extends JFrame {
     private final JTextField seatsField;
     private final JTextArea outputArea;
     private final JCheckBox[] seatCheckBoxes;
-    private final ExecutorService executor = Executors.newFixedThreadPool(5);
+    private final JButton exportButton;
+    private final JButton moreHistoryButton;
+    private final int historyPageSize = AppConfig.getInt("history.page.size", 20);
+    private BookingQuery historyQuery = BookingQuery.ALL_NEWEST_FIRST;
+    private int historyCursor;
+    private boolean historyLoading;
+    private final CoalescingSeatMapUpdater seatMapUpdater;
+    private final RequestExecutor executor = RequestExecutor.fromConfig();
+    private final boolean asyncBooking = AppConfig.getBoolean("booking.async", false);
     private boolean isProcessing = false;
 
     /**
@@ -38,6 +57,13 @@ public class TicketBookingGUI extends JFrame {
         this.bookingSystem = bookingSystem;
         setTitle("Railway Ticket Booking System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Runs before EXIT_ON_CLOSE exits, so queued bookings are committed first.
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                dispose();
+            }
+        });
         setSize(800, 600);
         setLocationRelativeTo(null);
         try {
@@ -69,12 +95,15 @@ public class TicketBookingGUI extends JFrame {
         JButton cancelButton = new JButton("Cancel Booking");
         JButton seatMapButton = new JButton("View Seat Map");
         JButton historyButton = new JButton("View Booking History");
+        moreHistoryButton = new JButton("More History");
+        moreHistoryButton.setEnabled(false);
         JButton statsButton = new JButton("View Booking Stats");
-        JButton exportButton = new JButton("Export Bookings");
+        exportButton = new JButton("Export Bookings");
         buttonPanel.add(bookButton);
         buttonPanel.add(cancelButton);
         buttonPanel.add(seatMapButton);
         buttonPanel.add(historyButton);
+        buttonPanel.add(moreHistoryButton);
         buttonPanel.add(statsButton);
         buttonPanel.add(exportButton);
 
@@ -89,7 +118,8 @@ public class TicketBookingGUI extends JFrame {
         mainPanel.add(outputScroll, BorderLayout.EAST);
         add(mainPanel);
 
-        bookingSystem.addUpdateListener(this::updateSeatMap);
+        seatMapUpdater = new CoalescingSeatMapUpdater(AppConfig.getInt("ui.frame.interval.ms", 16), this::applySeatChanges);
+        bookingSystem.addSeatChangeListener(seatMapUpdater);
 
         bookButton.addActionListener(this::actionPerformed2);
 
@@ -97,6 +127,7 @@ public class TicketBookingGUI extends JFrame {
 
         seatMapButton.addActionListener(e -> displaySeatMap());
         historyButton.addActionListener(e -> displayBookingHistory());
+        moreHistoryButton.addActionListener(e -> displayHistoryPage());
         statsButton.addActionListener(e -> displayBookingStats());
         exportButton.addActionListener(e -> exportBookings());
 
@@ -121,9 +152,9 @@ public class TicketBookingGUI extends JFrame {
                 JOptionPane.showMessageDialog(this, "Selected seats must match requested seats.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            executor.submit(() -> {
+            executor.execute(() -> {
                 try {
-                    BookingThread thread = new BookingThread(bookingSystem, userName, requestedSeats, selectedSeats);
+                    BookingThread thread = new BookingThread(bookingSystem, userName, requestedSeats, selectedSeats, asyncBooking);
                     thread.run();
                     SwingUtilities.invokeLater(() -> {
                         JOptionPane.showMessageDialog(this, "Booking processed for " + userName + ".", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -150,7 +181,7 @@ public class TicketBookingGUI extends JFrame {
                 JOptionPane.showMessageDialog(this, "Seats to cancel must be between 1 and 10.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            executor.submit(() -> {
+            executor.execute(() -> {
                 try {
                     boolean success = bookingSystem.cancelBooking(userName, seatsToCancel);
                     SwingUtilities.invokeLater(() -> {
@@ -178,14 +209,29 @@ public class TicketBookingGUI extends JFrame {
     }
 
     private void updateSeatMap() {
-        String[] seatMap = bookingSystem.displaySeatMap();
-        for (int i = 0; i < seatCheckBoxes.length; i++) {
-            seatCheckBoxes[i].setEnabled(seatMap[i].equals("Available"));
+        ReadSnapshot snapshot = bookingSystem.getReadSnapshot();
+        List<String> seatMap = snapshot.getSeatMap();
+        for (int i = 0; i < seatCheckBoxes.length && i < seatMap.size(); i++) {
+            seatCheckBoxes[i].setEnabled(seatMap.get(i).equals("Available"));
             seatCheckBoxes[i].setSelected(false);
         }
+        seatMapUpdater.markRefreshed(snapshot.getSeatVersion());
         outputArea.append("Seat map updated.\n");
     }
 
+    private void applySeatChanges(Map<Integer, SeatChange> changes) {
+        changes.forEach((seatId, change) -> {
+            if (seatId < 1 || seatId > seatCheckBoxes.length) return;
+            JCheckBox checkBox = seatCheckBoxes[seatId - 1];
+            boolean available = change.getNewState() == SeatChange.State.AVAILABLE;
+            checkBox.setEnabled(available);
+            if (!available) {
+                checkBox.setSelected(false);
+            }
+        });
+        outputArea.append("Seat map updated (" + changes.size() + " seats changed).\n");
+    }
+
     private void displaySeatMap() {
         String[] seatMap = bookingSystem.displaySeatMap();
         outputArea.append("Seat Map:\n");
@@ -194,37 +240,144 @@ public class TicketBookingGUI extends JFrame {
         }
     }
 
+    /**
+     * Asks for history filters (user prefilled from the name field, status, day range) and
+     * shows the newest matching page. "More History" continues with older pages.
+     */
     private void displayBookingHistory() {
-        List<Booking> history = bookingSystem.getBookingHistory();
-        outputArea.append("Booking History:\n");
-        for (Booking booking : history) {
-            outputArea.append(booking.toString() + "\n");
+        if (historyLoading) return;
+        JTextField userField = new JTextField(nameField.getText().trim(), 20);
+        JComboBox<String> statusBox = new JComboBox<>(new String[]{"All", "CONFIRMED", "WAITLISTED", "CANCELLED"});
+        JTextField fromField = new JTextField(10);
+        JTextField toField = new JTextField(10);
+        JPanel filters = new JPanel(new GridLayout(4, 2, 5, 5));
+        filters.add(new JLabel("User (blank for all):"));
+        filters.add(userField);
+        filters.add(new JLabel("Status:"));
+        filters.add(statusBox);
+        filters.add(new JLabel("From date (yyyy-MM-dd):"));
+        filters.add(fromField);
+        filters.add(new JLabel("To date, inclusive:"));
+        filters.add(toField);
+        if (JOptionPane.showConfirmDialog(this, filters, "Booking History", JOptionPane.OK_CANCEL_OPTION)
+                != JOptionPane.OK_OPTION) {
+            return;
+        }
+        String userName = userField.getText().trim();
+        String status = statusBox.getSelectedIndex() == 0 ? null : (String) statusBox.getSelectedItem();
+        try {
+            historyQuery = BookingQuery.forDays(userName.isEmpty() ? null : userName, status,
+                    parseDay(fromField.getText()), parseDay(toField.getText()), true);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Dates must be in the form yyyy-MM-dd.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        historyCursor = 0;
+        outputArea.append(userName.isEmpty() ? "Booking History:\n" : "Booking History for " + userName + ":\n");
+        displayHistoryPage();
+    }
+
+    private static LocalDate parseDay(String text) {
+        return text.isBlank() ? null : LocalDate.parse(text.trim());
+    }
+
+    /**
+     * Fetches the next page off the event thread; the store query may hit the database.
+     */
+    private void displayHistoryPage() {
+        if (historyLoading) return;
+        historyLoading = true;
+        moreHistoryButton.setEnabled(false);
+        BookingQuery query = historyQuery;
+        int cursor = historyCursor;
+        new SwingWorker<BookingPage, Void>() {
+            @Override
+            protected BookingPage doInBackground() {
+                return bookingSystem.findBookings(query, cursor, historyPageSize);
+            }
+
+            @Override
+            protected void done() {
+                historyLoading = false;
+                try {
+                    BookingPage page = get();
+                    for (Booking booking : page.getBookings()) {
+                        outputArea.append(booking.toString() + "\n");
+                    }
+                    if (page.getBookings().isEmpty() && cursor == 0) {
+                        outputArea.append("No bookings found.\n");
+                    }
+                    historyCursor = page.getNextCursor();
+                    moreHistoryButton.setEnabled(page.hasMore());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    outputArea.append("Failed to load booking history: " + ex.getCause().getMessage() + "\n");
+                }
+            }
+        }.execute();
     }
 
     private void displayBookingStats() {
-        Map<String, Integer> stats = bookingSystem.getBookingStats();
+        BookingStats stats = bookingSystem.getBookingStatsSnapshot();
         outputArea.append("Booking Statistics:\n");
-        stats.forEach((status, count) -> outputArea.append(status + ": " + count + "\n"));
+        stats.toStatusCounts().forEach((status, count) -> outputArea.append(status + ": " + count + "\n"));
+        outputArea.append("Confirmed seats: " + stats.getConfirmedSeats() + "\n");
+        outputArea.append("Waitlisted seats: " + stats.getWaitlistedSeats() + "\n");
     }
 
     private void exportBookings() {
-        try (PrintWriter writer = new PrintWriter("bookings.csv")) {
-            writer.println("ID,User,Seats,Time,Status");
-            for (Booking booking : new BookingDAO().getBookingHistory()) {
-                writer.println(String.format("%d,%s,%d,%s,%s",
-                        booking.getId(), booking.getUserName(), booking.getSeatsBooked(),
-                        booking.getBookingTime(), booking.getStatus()));
+        int choice = JOptionPane.showConfirmDialog(this, "Export only bookings added since the last export?",
+                "Export Bookings", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) return;
+        boolean incremental = choice == JOptionPane.YES_OPTION;
+        Path file = Path.of(AppConfig.getString("export.file", "bookings.csv"));
+        boolean gzip = AppConfig.getBoolean("export.gzip", false);
+        exportButton.setEnabled(false);
+        outputArea.append("Exporting bookings to " + file + "...\n");
+        new SwingWorker<Long, String>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return new BookingCsvExporter().export(file, gzip, incremental,
+                        (written, total) -> publish("Exported " + written + "/" + total + " bookings"));
             }
-            JOptionPane.showMessageDialog(this, "Bookings exported to bookings.csv", "Success", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+
+            @Override
+            protected void process(List<String> chunks) {
+                outputArea.append(chunks.get(chunks.size() - 1) + "\n");
+            }
+
+            @Override
+            protected void done() {
+                exportButton.setEnabled(true);
+                try {
+                    long rows = get();
+                    JOptionPane.showMessageDialog(TicketBookingGUI.this, rows + " bookings exported to " + file, "Success", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(TicketBookingGUI.this, "Export failed: " + ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 
+    /**
+     * Lets submitted requests finish, then shuts the booking system down so bookings
+     * waiting for group commit are written before the application exits.
+     */
     @Override
     public void dispose() {
         executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        bookingSystem.shutdown();
         super.dispose();
     }
 
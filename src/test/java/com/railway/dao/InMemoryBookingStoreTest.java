@@ -0,0 +1,68 @@
+package com.railway.dao;
+
+import com.railway.model.Booking;
+import com.railway.model.Leg;
+import com.railway.model.SeatRelease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Seat claims against the store's own state, bypassing the service's SeatInventory.
+ */
+class InMemoryBookingStoreTest {
+    private InMemoryBookingStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryBookingStore();
+        store.initialize(20);
+    }
+
+    @Test
+    void fullJourneyClaimRejectsSeatHeldForLeg() throws Exception {
+        store.addConfirmedBooking(legBooking("alice", 1, new Leg(0, 2)), new int[] {5});
+
+        SeatConflictException conflict = assertThrows(SeatConflictException.class,
+                () -> store.addConfirmedBooking(booking("bob", 2), new int[] {5, 6}));
+        assertArrayEquals(new int[] {5}, conflict.getSeatIds());
+
+        int waitlisted = store.addBooking(new Booking(0, "carol", 1, null, "WAITLISTED"));
+        assertThrows(SeatConflictException.class, () -> store.confirmWaitlistedBooking(waitlisted, new int[] {5}));
+        assertThrows(SeatConflictException.class,
+                () -> store.addBookings(List.of(booking("dave", 1)), List.of(new int[] {5})));
+        assertEquals(0, store.getBookedSeats().size());
+    }
+
+    @Test
+    void legClaimRejectsBookedSeatAndOverlappingLeg() throws Exception {
+        store.addConfirmedBooking(booking("alice", 1), new int[] {1});
+        SeatConflictException booked = assertThrows(SeatConflictException.class,
+                () -> store.addConfirmedBooking(legBooking("bob", 2, new Leg(0, 2)), new int[] {1, 2}));
+        assertArrayEquals(new int[] {1}, booked.getSeatIds());
+
+        int first = store.addConfirmedBooking(legBooking("carol", 1, new Leg(0, 2)), new int[] {3});
+        SeatConflictException overlap = assertThrows(SeatConflictException.class,
+                () -> store.addConfirmedBooking(legBooking("dave", 1, new Leg(1, 3)), new int[] {3}));
+        assertArrayEquals(new int[] {3}, overlap.getSeatIds());
+
+        // Adjacent legs share the seat; once the first leg is released the overlapping one fits.
+        store.addConfirmedBooking(legBooking("erin", 1, new Leg(2, 4)), new int[] {3});
+        store.cancelSeats(List.of(new SeatRelease(first, new int[] {3}, 0, new Leg(0, 2))));
+        int later = store.addConfirmedBooking(legBooking("dave", 1, new Leg(1, 2)), new int[] {3});
+        assertArrayEquals(new int[] {3}, store.getUserSeats("dave").get(later));
+    }
+
+    private static Booking booking(String userName, int seats) {
+        return new Booking(0, userName, seats, null, "CONFIRMED");
+    }
+
+    private static Booking legBooking(String userName, int seats, Leg leg) {
+        return new Booking(0, userName, seats, null, "CONFIRMED", leg);
+    }
+}
@@ -0,0 +1,152 @@
+package com.railway.dao;
+
+import com.railway.model.Booking;
+import com.railway.model.BookingQuery;
+import com.railway.model.SeatRelease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovers JournalBookingStore from copies of its directory, as after a crash: a torn
+ * journal tail and a snapshot rollover.
+ */
+class JournalBookingStoreTest {
+    private static final int TOTAL_SEATS = 100;
+    private static final long MAP_BYTES = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysCommittedOperations() throws Exception {
+        JournalBookingStore store = open(dir.resolve("live"), 100_000);
+        int alice = store.addConfirmedBooking(new Booking(0, "alice", 3, null, "CONFIRMED"), new int[] {1, 2, 3});
+        store.addBooking(new Booking(0, "bob", 2, null, "WAITLISTED"));
+        store.cancelSeats(List.of(new SeatRelease(alice, new int[] {3}, 2)));
+
+        JournalBookingStore recovered = open(copy(dir.resolve("live"), dir.resolve("copy")), 100_000);
+        assertSameState(store, recovered);
+        assertEquals(2, recovered.getUserSeats("alice").get(alice).length);
+    }
+
+    @Test
+    void dropsOperationTornByTruncation() throws Exception {
+        JournalBookingStore store = open(dir.resolve("live"), 100_000);
+        store.addConfirmedBooking(new Booking(0, "alice", 2, null, "CONFIRMED"), new int[] {1, 2});
+        List<Booking> beforeLast = bookings(store);
+        store.addConfirmedBooking(new Booking(0, "bob", 30, null, "CONFIRMED"), IntStream.rangeClosed(10, 39).toArray());
+
+        // Cut the journal in the middle of the second record of bob's booking.
+        Path copy = copy(dir.resolve("live"), dir.resolve("copy"));
+        Path journal = copy.resolve("journal-1.log");
+        long[] commits = commitEnds(journal);
+        assertTrue(commits.length >= 2);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(commits[commits.length - 2] + JournalBookingStore.RECORD_SIZE + 50);
+        }
+
+        JournalBookingStore recovered = open(copy, 100_000);
+        assertEquals(ids(beforeLast), ids(bookings(recovered)));
+        assertTrue(recovered.getUserSeats("bob").isEmpty());
+        assertEquals(2, recovered.getBookedSeats().size());
+
+        // The recovered journal continues after the last complete operation.
+        int carol = recovered.addConfirmedBooking(new Booking(0, "carol", 1, null, "CONFIRMED"), new int[] {10});
+        JournalBookingStore reopened = open(copy(copy, dir.resolve("copy2")), 100_000);
+        assertSameState(recovered, reopened);
+        assertEquals(Integer.valueOf(carol), reopened.getBookedSeats().get(10));
+    }
+
+    @Test
+    void replaysAfterSnapshotRollover() throws Exception {
+        Path live = dir.resolve("live");
+        JournalBookingStore store = open(live, 20);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(store.addConfirmedBooking(new Booking(0, "user" + i, 2, null, "CONFIRMED"),
+                    new int[] {2 * i + 1, 2 * i + 2}));
+        }
+        awaitSnapshot(live);
+        store.cancelSeats(List.of(new SeatRelease(ids.get(0), new int[] {1, 2}, 0)));
+        int late = store.addBooking(new Booking(0, "late", 4, null, "WAITLISTED"));
+        assertTrue(store.confirmWaitlistedBooking(late, new int[] {1, 2, 50, 51}));
+
+        JournalBookingStore recovered = open(copy(live, dir.resolve("copy")), 20);
+        assertSameState(store, recovered);
+        assertFalse(Files.exists(live.resolve("journal-1.log")));
+    }
+
+    private static JournalBookingStore open(Path dir, long snapshotEvery) {
+        JournalBookingStore store = new JournalBookingStore(dir, "none", 10, snapshotEvery, MAP_BYTES);
+        store.initialize(TOTAL_SEATS);
+        return store;
+    }
+
+    private static Path copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(".tmp")) {
+                    Files.copy(file, to.resolve(file.getFileName()));
+                }
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return File offsets just past each record flagged as commit
+     */
+    private static long[] commitEnds(Path journal) throws IOException {
+        byte[] bytes = Files.readAllBytes(journal);
+        List<Long> ends = new ArrayList<>();
+        for (int offset = 0; offset + JournalBookingStore.RECORD_SIZE <= bytes.length;
+             offset += JournalBookingStore.RECORD_SIZE) {
+            if (bytes[offset + 4] == 0) break;
+            if ((bytes[offset + 5] & 1) != 0) ends.add((long) offset + JournalBookingStore.RECORD_SIZE);
+        }
+        return ends.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void awaitSnapshot(Path dir) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!(Files.exists(dir.resolve("snapshot.bin")) && !Files.exists(dir.resolve("journal-1.log")))) {
+            assertTrue(System.currentTimeMillis() < deadline, "snapshot was not written");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void assertSameState(BookingStore expected, BookingStore actual) throws Exception {
+        assertEquals(describe(bookings(expected)), describe(bookings(actual)));
+        assertEquals(expected.getBookedSeats(), actual.getBookedSeats());
+        assertEquals(expected.getPendingNotifications(0, 1000).size(), actual.getPendingNotifications(0, 1000).size());
+    }
+
+    private static List<Booking> bookings(BookingStore store) throws Exception {
+        return store.findBookings(BookingQuery.ALL, 0, 1000).getBookings();
+    }
+
+    private static List<Integer> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).toList();
+    }
+
+    private static List<String> describe(List<Booking> bookings) {
+        return bookings.stream()
+                .map(b -> b.getId() + " " + b.getUserName() + " " + b.getSeatsBooked() + " " + b.getStatus())
+                .toList();
+    }
+}
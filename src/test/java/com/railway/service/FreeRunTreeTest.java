@@ -0,0 +1,73 @@
+package com.railway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks FreeRunTree against a linear scan of the same seat row.
+ */
+class FreeRunTreeTest {
+
+    @Test
+    void newTreeIsOneFreeRun() {
+        for (int size : new int[] {1, 5, 8, 72}) {
+            FreeRunTree tree = new FreeRunTree(size);
+            assertEquals(size, tree.longest());
+            assertEquals(0, tree.findFirst(size));
+            assertEquals(-1, tree.findFirst(size + 1));
+        }
+    }
+
+    @Test
+    void matchesLinearScanAfterRandomUpdates() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int size = 1 + random.nextInt(100);
+            FreeRunTree tree = new FreeRunTree(size);
+            boolean[] free = new boolean[size];
+            Arrays.fill(free, true);
+            for (int step = 0; step < 3 * size; step++) {
+                int index = random.nextInt(size);
+                // Bias towards taken seats so that short and long runs both occur.
+                boolean value = random.nextInt(3) == 0;
+                tree.set(index, value);
+                free[index] = value;
+                assertEquals(longestRun(free), tree.longest(), "longest, size " + size + " step " + step);
+                for (int length = 1; length <= size + 1; length++) {
+                    assertEquals(firstRun(free, length), tree.findFirst(length),
+                            "findFirst(" + length + "), size " + size + " step " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveLength() {
+        FreeRunTree tree = new FreeRunTree(10);
+        assertEquals(-1, tree.findFirst(0));
+        assertEquals(-1, tree.findFirst(-3));
+    }
+
+    private static int longestRun(boolean[] free) {
+        int longest = 0;
+        int run = 0;
+        for (boolean seat : free) {
+            run = seat ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    private static int firstRun(boolean[] free, int length) {
+        int run = 0;
+        for (int i = 0; i < free.length; i++) {
+            run = free[i] ? run + 1 : 0;
+            if (run == length) return i - length + 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,123 @@
+package com.railway.service;
+
+import com.railway.dao.InMemoryBookingStore;
+import com.railway.model.Booking;
+import com.railway.model.BookingPage;
+import com.railway.model.BookingQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the booking service through a fresh InMemoryBookingStore per test.
+ */
+class RailwayTicketBookingSystemTest {
+    private static final int TOTAL_SEATS = 8;
+    private InMemoryBookingStore store;
+    private RailwayTicketBookingSystem system;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryBookingStore();
+        system = new RailwayTicketBookingSystem(TOTAL_SEATS, store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.shutdown();
+    }
+
+    @Test
+    void partialCancelKeepsRemainingSeats() throws Exception {
+        assertTrue(system.bookTicket("alice", 3, null));
+        assertTrue(system.bookTicket("bob", 2, null));
+        assertEquals(TOTAL_SEATS - 5, system.getFreeSeatCount(null));
+
+        assertTrue(system.cancelBooking("alice", 2));
+        assertEquals(TOTAL_SEATS - 3, system.getFreeSeatCount(null));
+        Booking alice = single(bookings("alice"));
+        assertEquals("CONFIRMED", alice.getStatus());
+        assertEquals(1, alice.getSeatsBooked());
+        assertEquals(1, store.getUserSeats("alice").get(alice.getId()).length);
+
+        assertFalse(system.cancelBooking("alice", 2));
+        assertTrue(system.cancelBooking("alice", 1));
+        assertEquals("CANCELLED", single(bookings("alice")).getStatus());
+        assertTrue(store.getUserSeats("alice").isEmpty());
+        assertEquals(2, store.getUserSeats("bob").values().iterator().next().length);
+        assertEquals(TOTAL_SEATS - 2, system.getFreeSeatCount(null));
+    }
+
+    @Test
+    void waitlistPromotesOldestBookingThatFits() throws Exception {
+        assertTrue(system.bookTicket("alice", TOTAL_SEATS, null));
+        assertTrue(system.bookTicket("w1", 3, null));
+        assertTrue(system.bookTicket("w2", 1, null));
+        assertTrue(system.bookTicket("w3", 2, null));
+        assertTrue(system.bookTicket("w4", 1, null));
+        assertEquals("WAITLISTED", single(bookings("w1")).getStatus());
+
+        // Two free seats: w1 does not fit, w2 is next in line, then w4 rather than w3.
+        assertTrue(system.cancelBooking("alice", 2));
+        assertEquals(Map.of("w1", "WAITLISTED", "w2", "CONFIRMED", "w3", "WAITLISTED", "w4", "CONFIRMED"),
+                waitlistStatuses());
+
+        assertTrue(system.cancelBooking("alice", 3));
+        assertEquals(Map.of("w1", "CONFIRMED", "w2", "CONFIRMED", "w3", "WAITLISTED", "w4", "CONFIRMED"),
+                waitlistStatuses());
+        assertEquals(0, system.getFreeSeatCount(null));
+    }
+
+    @Test
+    void replayedRequestBooksOnce() throws Exception {
+        assertTrue(system.bookTicket("alice", 2, null, null, "req-1"));
+        assertTrue(system.bookTicket("alice", 2, null, null, "req-1"));
+        assertEquals(1, bookings("alice").size());
+        assertEquals(TOTAL_SEATS - 2, system.getFreeSeatCount(null));
+
+        // A restarted service has an empty idempotency cache; the store's request ID catches the replay.
+        system.shutdown();
+        system = new RailwayTicketBookingSystem(TOTAL_SEATS, store);
+        assertTrue(system.bookTicket("alice", 2, null, null, "req-1"));
+        assertEquals(1, bookings("alice").size());
+        assertEquals(TOTAL_SEATS - 2, system.getFreeSeatCount(null));
+
+        assertTrue(system.bookTicket("alice", 2, null, null, "req-2"));
+        assertEquals(2, bookings("alice").size());
+    }
+
+    @Test
+    void replayedCancellationCancelsOnce() throws Exception {
+        assertTrue(system.bookTicket("alice", 4, null));
+        assertTrue(system.cancelBooking("alice", 1, "cancel-1"));
+        assertTrue(system.cancelBooking("alice", 1, "cancel-1"));
+        assertEquals(3, single(bookings("alice")).getSeatsBooked());
+        assertEquals(TOTAL_SEATS - 3, system.getFreeSeatCount(null));
+    }
+
+    private List<Booking> bookings(String userName) throws Exception {
+        BookingPage page = store.findBookings(new BookingQuery(userName, null, null, null, false), 0, 100);
+        return page.getBookings();
+    }
+
+    private Map<String, String> waitlistStatuses() throws Exception {
+        Map<String, String> statuses = new HashMap<>();
+        for (String user : List.of("w1", "w2", "w3", "w4")) {
+            statuses.put(user, single(bookings(user)).getStatus());
+        }
+        return statuses;
+    }
+
+    private static Booking single(List<Booking> bookings) {
+        assertEquals(1, bookings.size());
+        return bookings.get(0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.railway.service;
+
+import com.railway.model.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that WaitlistIndex answers with the FIFO-first booking that fits.
+ */
+class WaitlistIndexTest {
+    private static final int MAX_SEATS = 10;
+
+    @Test
+    void returnsOldestBookingThatFits() {
+        WaitlistIndex index = new WaitlistIndex(MAX_SEATS);
+        index.add(booking(1, 4));
+        index.add(booking(2, 2));
+        index.add(booking(3, 1));
+        index.add(booking(4, 2));
+
+        assertNull(index.firstFitting(0));
+        assertEquals(3, index.firstFitting(1).getId());
+        assertEquals(2, index.firstFitting(3).getId());
+        assertEquals(1, index.firstFitting(4).getId());
+        assertEquals(1, index.firstFitting(MAX_SEATS + 5).getId());
+
+        assertTrue(index.remove(booking(2, 2)));
+        assertEquals(3, index.firstFitting(2).getId());
+        assertTrue(index.remove(booking(3, 1)));
+        assertEquals(4, index.firstFitting(2).getId());
+        assertNull(index.firstFitting(1));
+    }
+
+    @Test
+    void matchesLinearScanOfWaitlist() {
+        Random random = new Random(7);
+        WaitlistIndex index = new WaitlistIndex(MAX_SEATS);
+        List<Booking> waitlist = new ArrayList<>();
+        int nextId = 1;
+        for (int step = 0; step < 5000; step++) {
+            if (waitlist.isEmpty() || random.nextInt(3) > 0) {
+                Booking booking = booking(nextId++, 1 + random.nextInt(MAX_SEATS));
+                index.add(booking);
+                waitlist.add(booking);
+            } else {
+                Booking booking = waitlist.remove(random.nextInt(waitlist.size()));
+                assertTrue(index.remove(booking));
+            }
+            assertEquals(waitlist.size(), index.size());
+            for (int free = 0; free <= MAX_SEATS + 1; free++) {
+                Booking expected = firstFitting(waitlist, free);
+                Booking actual = index.firstFitting(free);
+                assertEquals(expected == null ? null : expected.getId(), actual == null ? null : actual.getId(),
+                        "firstFitting(" + free + ") at step " + step);
+            }
+        }
+    }
+
+    @Test
+    void rebuildKeepsIdOrder() {
+        WaitlistIndex index = new WaitlistIndex(MAX_SEATS);
+        index.add(booking(99, 1));
+        index.rebuild(List.of(booking(12, 3), booking(5, 3), booking(8, 1)));
+        assertEquals(3, index.size());
+        assertEquals(5, index.firstFitting(3).getId());
+        assertEquals(8, index.firstFitting(2).getId());
+    }
+
+    private static Booking firstFitting(List<Booking> waitlist, int freeSeats) {
+        for (Booking booking : waitlist) {
+            if (booking.getSeatsBooked() <= freeSeats) return booking;
+        }
+        return null;
+    }
+
+    private static Booking booking(int id, int seats) {
+        return new Booking(id, "user" + id, seats, null, "WAITLISTED");
+    }
+}